@@ -0,0 +1,62 @@
+package com.assignment.bookservice.benchmark;
+
+import com.assignment.bookservice.security.CachingAuthenticationProvider;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AdminAuthenticationBenchmark.java
+ *
+ * Cost of checking the admin's Basic credentials against the bcrypt hash
+ * (uncached) and of a repeated check answered by the authentication cache
+ * (cached).
+ *
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AdminAuthenticationBenchmark {
+
+    private final DaoAuthenticationProvider uncachedProvider = new DaoAuthenticationProvider();
+    private final CachingAuthenticationProvider cachedProvider;
+
+    public AdminAuthenticationBenchmark() {
+        PasswordEncoder passwordEncoder = PasswordEncoderFactories.createDelegatingPasswordEncoder();
+        uncachedProvider.setUserDetailsService(new InMemoryUserDetailsManager(User.withUsername("admin")
+                .password(passwordEncoder.encode("password"))
+                .roles("ADMIN")
+                .build()));
+        uncachedProvider.setPasswordEncoder(passwordEncoder);
+        cachedProvider = new CachingAuthenticationProvider(uncachedProvider, Duration.ofMinutes(1));
+    }
+
+    @Benchmark
+    public Authentication uncached() {
+        return uncachedProvider.authenticate(new UsernamePasswordAuthenticationToken("admin", "password"));
+    }
+
+    @Benchmark
+    public Authentication cached() {
+        return cachedProvider.authenticate(new UsernamePasswordAuthenticationToken("admin", "password"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.assignment.bookservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AuthorServiceBenchmark.java
+ *
+ * Latency of the author listing, with and without books, and of the
+ * aggregate query computing the total book worth of a page of authors.
+ *
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AuthorServiceBenchmark {
+
+    @Param({"50"})
+    public int pageSize;
+
+    @Benchmark
+    public Object findAuthorsWithBooks(CatalogState catalog) {
+        return catalog.authorService.findAuthors(randomPage(catalog), pageSize, true);
+    }
+
+    @Benchmark
+    public Object findAuthorsWithoutBooks(CatalogState catalog) {
+        return catalog.authorService.findAuthors(randomPage(catalog), pageSize, false);
+    }
+
+    @Benchmark
+    public Object authorStats(CatalogState catalog) {
+        int from = randomPage(catalog) * pageSize;
+        List<Long> ids = catalog.authorIds.subList(from, Math.min(from + pageSize, catalog.authorIds.size()));
+        return catalog.authorStatsRepository.findAllById(ids);
+    }
+
+    private int randomPage(CatalogState catalog) {
+        return ThreadLocalRandom.current().nextInt(Math.max(1, catalog.authorCount / pageSize));
+    }
+}
@@ -0,0 +1,64 @@
+package com.assignment.bookservice.benchmark;
+
+import com.assignment.bookservice.dto.BookDto;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BookServiceBenchmark.java
+ *
+ * Throughput of the book write and listing paths. saveBook and saveBooks both
+ * report books per second, so the single-item and batch ingestion paths can be
+ * compared directly.
+ *
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class BookServiceBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+
+    private static final AtomicLong TITLES = new AtomicLong();
+
+    @Benchmark
+    public void saveBook(CatalogState catalog) {
+        catalog.bookService.saveBook(newBook(catalog));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public Object saveBooks(CatalogState catalog) {
+        List<BookDto> books = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            books.add(newBook(catalog));
+        }
+        return catalog.bookService.saveBooks(books);
+    }
+
+    @Benchmark
+    public Object findBooks(CatalogState catalog) {
+        int pages = catalog.authorCount * catalog.booksPerAuthor / 50;
+        return catalog.bookService.findBooks(ThreadLocalRandom.current().nextInt(pages), 50);
+    }
+
+    private static BookDto newBook(CatalogState catalog) {
+        long title = TITLES.incrementAndGet();
+        Long authorId = catalog.authorIds.get((int) (title % catalog.authorIds.size()));
+        return CatalogState.bookDto("benchmark-" + title, authorId, (int) title);
+    }
+}
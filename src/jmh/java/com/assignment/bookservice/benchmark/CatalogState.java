@@ -0,0 +1,94 @@
+package com.assignment.bookservice.benchmark;
+
+import com.assignment.bookservice.BookServiceApplication;
+import com.assignment.bookservice.dto.AuthorDto;
+import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.repository.AuthorStatsRepository;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.service.AuthorService;
+import com.assignment.bookservice.service.BookService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * CatalogState.java
+ *
+ * Boots the application against its own in-memory H2 database and seeds it with
+ * a catalog of the configured size, shared by all threads of a benchmark trial.
+ *
+ */
+@State(Scope.Benchmark)
+public class CatalogState {
+
+    static final String[] GENRES = {"Fantasy", "Science Fiction", "Romance", "Thriller", "Mystery", "Horror", "Autobiography"};
+
+    @Param({"1000"})
+    public int authorCount;
+
+    @Param({"20"})
+    public int booksPerAuthor;
+
+    ConfigurableApplicationContext context;
+    BookService bookService;
+    AuthorService authorService;
+    AuthorStatsRepository authorStatsRepository;
+    BookRepository bookRepository;
+    ObjectMapper objectMapper;
+    List<Long> authorIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:benchmark-" + UUID.randomUUID(),
+                        "spring.h2.console.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        bookService = context.getBean(BookService.class);
+        authorService = context.getBean(AuthorService.class);
+        authorStatsRepository = context.getBean(AuthorStatsRepository.class);
+        bookRepository = context.getBean(BookRepository.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        authorIds = new ArrayList<>(authorCount);
+        List<BookDto> books = new ArrayList<>();
+        for (int i = 0; i < authorCount; i++) {
+            Author author = authorService.saveAuthor(new AuthorDto("firstName" + i, "lastName" + i));
+            authorIds.add(author.getId());
+            for (int j = 0; j < booksPerAuthor; j++) {
+                books.add(bookDto("seed-" + i + "-" + j, author.getId(), i + j));
+            }
+        }
+        bookService.saveBooks(books);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    static BookDto bookDto(String title, Long authorId, int seed) {
+        return BookDto.builder()
+                .title(title)
+                .description("Description of " + title)
+                .price(BigDecimal.valueOf(500 + seed % 5000, 2))
+                .unitsSold(seed % 1000)
+                .genre(GENRES[seed % GENRES.length])
+                .authorId(authorId)
+                .build();
+    }
+}
@@ -0,0 +1,34 @@
+package com.assignment.bookservice.benchmark;
+
+import com.assignment.bookservice.validation.GenreTypeValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class GenreTypeValidatorBenchmark {
+
+    @Param({"Fantasy", "Autobiography", "Cookbook"})
+    public String genre;
+
+    private final GenreTypeValidator validator = new GenreTypeValidator();
+
+    @Benchmark
+    public boolean isValid() {
+        return validator.isValid(genre, null);
+    }
+}
@@ -0,0 +1,60 @@
+package com.assignment.bookservice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResponseSerializationBenchmark.java
+ *
+ * Cost of reading and serializing a page of books as JPA entities versus as
+ * BookView projections, the form the read endpoints return. Run it with
+ * "-prof gc" to compare the allocation per response as well.
+ *
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ResponseSerializationBenchmark {
+
+    @Param({"50"})
+    public int pageSize;
+
+    @Benchmark
+    public byte[] bookPageFromEntities(CatalogState catalog) throws JsonProcessingException {
+        return catalog.objectMapper.writeValueAsBytes(
+                catalog.bookRepository.findAll(PageRequest.of(randomPage(catalog), pageSize)).getContent());
+    }
+
+    @Benchmark
+    public byte[] bookPageFromViews(CatalogState catalog) throws JsonProcessingException {
+        return catalog.objectMapper.writeValueAsBytes(
+                catalog.bookRepository.findAllViews(PageRequest.of(randomPage(catalog), pageSize)).getContent());
+    }
+
+    @Benchmark
+    public byte[] authorPageWithBooks(CatalogState catalog) throws JsonProcessingException {
+        int page = ThreadLocalRandom.current().nextInt(Math.max(1, catalog.authorCount / pageSize));
+        return catalog.objectMapper.writeValueAsBytes(
+                catalog.authorService.findAuthors(page, pageSize, true).getContent());
+    }
+
+    private int randomPage(CatalogState catalog) {
+        return ThreadLocalRandom.current().nextInt(Math.max(1, catalog.authorCount * catalog.booksPerAuthor / pageSize));
+    }
+}
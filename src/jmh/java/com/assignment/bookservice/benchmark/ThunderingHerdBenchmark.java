@@ -0,0 +1,65 @@
+package com.assignment.bookservice.benchmark;
+
+import com.assignment.bookservice.metrics.RequestStatistics;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * ThunderingHerdBenchmark.java
+ *
+ * Many threads reading the same page of books at once, through the coalescing
+ * service (coalesced) and straight from the repository (uncoalesced). The
+ * statements counter reports the SQL statements each thread prepared, so
+ * statements per second divided by calls per second gives the database
+ * statements per read.
+ *
+ */
+@Fork(1)
+@Threads(32)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ThunderingHerdBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Statements {
+
+        public long statements;
+    }
+
+    @Benchmark
+    public Object coalesced(CatalogState catalog, Statements statements) {
+        return countStatements(statements, () -> catalog.bookService.findBooks(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Object uncoalesced(CatalogState catalog, Statements statements) {
+        return countStatements(statements, () -> catalog.bookRepository.findAllViews(PageRequest.of(0, PAGE_SIZE)));
+    }
+
+    private static Object countStatements(Statements statements, Supplier<Object> read) {
+        RequestStatistics.start();
+        try {
+            return read.get();
+        } finally {
+            statements.statements += RequestStatistics.stop().getStatementCount();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.assignment.bookservice.loadtest;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LoadTestConfig.java
+ *
+ * Load test settings, given as key=value program arguments, e.g.
+ * rate=500 duration=60 mix=getBook:60,getAuthors:20,postBook:20
+ *
+ */
+@Getter
+public class LoadTestConfig {
+
+    /** Base url of a running service; when empty the application is booted on a random port. */
+    private String baseUrl;
+    /** Arrival rate in requests per second (open model: independent of response times). */
+    private int rate = 200;
+    private int warmupSeconds = 5;
+    private int durationSeconds = 30;
+    /** Weighted operation mix, see {@link Operation} for the names. */
+    private String mix = "getBook:45,getBooks:15,getAuthor:10,getAuthors:10,postBook:15,deleteBook:5";
+    private int seedAuthors = 100;
+    private int seedBooksPerAuthor = 20;
+    private int pageSize = 20;
+    /** Requests beyond this many outstanding ones are counted as dropped instead of sent. */
+    private int maxInFlight = 2000;
+    private String adminUser = "admin";
+    private String adminPassword = "password";
+    private String label = "";
+    private String output = "target/load-test/result-"
+            + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".json";
+
+    public static LoadTestConfig parse(String[] args) {
+        LoadTestConfig config = new LoadTestConfig();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value argument but got " + arg);
+            }
+            String value = arg.substring(separator + 1);
+            switch (arg.substring(0, separator)) {
+                case "baseUrl": config.baseUrl = value; break;
+                case "rate": config.rate = Integer.parseInt(value); break;
+                case "warmup": config.warmupSeconds = Integer.parseInt(value); break;
+                case "duration": config.durationSeconds = Integer.parseInt(value); break;
+                case "mix": config.mix = value; break;
+                case "seedAuthors": config.seedAuthors = Integer.parseInt(value); break;
+                case "seedBooksPerAuthor": config.seedBooksPerAuthor = Integer.parseInt(value); break;
+                case "pageSize": config.pageSize = Integer.parseInt(value); break;
+                case "maxInFlight": config.maxInFlight = Integer.parseInt(value); break;
+                case "adminUser": config.adminUser = value; break;
+                case "adminPassword": config.adminPassword = value; break;
+                case "label": config.label = value; break;
+                case "output": config.output = value; break;
+                default: throw new IllegalArgumentException("Unknown load test argument " + arg);
+            }
+        }
+        return config;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("baseUrl", baseUrl);
+        map.put("rate", rate);
+        map.put("warmupSeconds", warmupSeconds);
+        map.put("durationSeconds", durationSeconds);
+        map.put("mix", mix);
+        map.put("seedAuthors", seedAuthors);
+        map.put("seedBooksPerAuthor", seedBooksPerAuthor);
+        map.put("pageSize", pageSize);
+        map.put("maxInFlight", maxInFlight);
+        return map;
+    }
+}
@@ -0,0 +1,219 @@
+package com.assignment.bookservice.loadtest;
+
+import com.assignment.bookservice.BookServiceApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LoadTestRunner.java
+ *
+ * Open-model HTTP load generator. Requests are sent at a fixed arrival rate
+ * whatever the response times, and latency is measured from the moment a
+ * request was due, so a slow server shows up as growing latency instead of
+ * a silently reduced request rate.
+ *
+ * Unless a baseUrl is given, the application is booted on a random port
+ * against a private in-memory database and seeded through the REST API.
+ * The report is printed and written as JSON to the configured output file.
+ *
+ */
+public class LoadTestRunner {
+
+    private final LoadTestConfig config;
+    private final LoadTestTarget target;
+    private final HttpClient client;
+    private final List<Operation> operations = new ArrayList<>();
+    private final List<Integer> cumulativeWeights = new ArrayList<>();
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    LoadTestRunner(LoadTestConfig config, String baseUrl) {
+        this.config = config;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(Executors.newCachedThreadPool())
+                .build();
+        this.target = new LoadTestTarget(config, baseUrl, client);
+        int total = 0;
+        for (String entry : config.getMix().split(",")) {
+            String[] nameAndWeight = entry.trim().split(":");
+            Operation operation = Operation.fromName(nameAndWeight[0]);
+            total += nameAndWeight.length > 1 ? Integer.parseInt(nameAndWeight[1]) : 1;
+            operations.add(operation);
+            cumulativeWeights.add(total);
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.parse(args);
+        ConfigurableApplicationContext application = null;
+        String baseUrl = config.getBaseUrl();
+        if (baseUrl == null) {
+            application = new SpringApplicationBuilder(BookServiceApplication.class)
+                    .properties(
+                            "server.port=0",
+                            "spring.datasource.url=jdbc:h2:mem:load-test-" + UUID.randomUUID(),
+                            "book-service.reactive.enabled=true",
+                            // all requests come from one client, which the per-client limits would throttle
+                            "book-service.admission.enabled=false",
+                            "logging.level.root=WARN")
+                    .run();
+            baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port") + "/api";
+        }
+        try {
+            LoadTestRunner runner = new LoadTestRunner(config, baseUrl);
+            runner.target.seed();
+            Map<String, Object> report = runner.run();
+            runner.write(report);
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    Map<String, Object> run() throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / config.getRate();
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(config.getWarmupSeconds());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(config.getDurationSeconds());
+        Semaphore inFlight = new Semaphore(config.getMaxInFlight());
+        Instant startedAt = Instant.now();
+
+        for (long i = 0; ; i++) {
+            long intendedStart = start + i * intervalNanos;
+            if (intendedStart >= end) {
+                break;
+            }
+            long delay = intendedStart - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            Operation operation = nextOperation();
+            OperationStats operationStats = intendedStart >= measureFrom ? stats.get(operation) : null;
+            if (!inFlight.tryAcquire()) {
+                if (operationStats != null) {
+                    operationStats.recordDropped();
+                }
+                continue;
+            }
+            client.sendAsync(operation.request(target), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, ex) -> {
+                        inFlight.release();
+                        long latency = System.nanoTime() - intendedStart;
+                        if (operationStats == null) {
+                            return;
+                        }
+                        if (ex != null) {
+                            operationStats.recordFailure(latency);
+                        } else {
+                            operationStats.record(latency, response.statusCode());
+                        }
+                    });
+        }
+        inFlight.tryAcquire(config.getMaxInFlight(), 1, TimeUnit.MINUTES);
+        return report(startedAt);
+    }
+
+    private Operation nextOperation() {
+        int value = ThreadLocalRandom.current().nextInt(cumulativeWeights.get(cumulativeWeights.size() - 1));
+        for (int i = 0; i < operations.size(); i++) {
+            if (value < cumulativeWeights.get(i)) {
+                return operations.get(i);
+            }
+        }
+        return operations.get(operations.size() - 1);
+    }
+
+    private Map<String, Object> report(Instant startedAt) {
+        double duration = config.getDurationSeconds();
+        Histogram overall = new Histogram(TimeUnit.MINUTES.toMicros(1), 3);
+        Map<String, Object> operationReports = new LinkedHashMap<>();
+        long errors = 0;
+        long dropped = 0;
+        for (Map.Entry<Operation, OperationStats> entry : stats.entrySet()) {
+            Map<String, Object> operationReport = entry.getValue().toMap(duration);
+            overall.add(entry.getValue().snapshot());
+            errors += (long) operationReport.get("errors");
+            dropped += (long) operationReport.get("dropped");
+            operationReports.put(entry.getKey().getName(), operationReport);
+        }
+        Map<String, Object> total = new LinkedHashMap<>();
+        total.put("count", overall.getTotalCount());
+        total.put("throughputPerSecond", overall.getTotalCount() / duration);
+        total.put("errors", errors);
+        total.put("dropped", dropped);
+        total.putAll(OperationStats.latencies(overall));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("label", config.getLabel());
+        report.put("commit", gitCommit());
+        report.put("startedAt", startedAt.toString());
+        report.put("config", config.toMap());
+        report.put("total", total);
+        report.put("operations", operationReports);
+        return report;
+    }
+
+    private void write(Map<String, Object> report) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Path output = Paths.get(config.getOutput());
+        if (output.getParent() != null) {
+            Files.createDirectories(output.getParent());
+        }
+        objectMapper.writerWithDefaultPrettyPrinter().writeValue(output.toFile(), report);
+
+        System.out.printf("%-18s %10s %12s %10s %10s %10s %10s %8s %8s%n",
+                "operation", "count", "req/s", "p50(us)", "p99(us)", "p99.9(us)", "max(us)", "errors", "dropped");
+        print("total", report.get("total"));
+        ((Map<?, ?>) report.get("operations")).forEach((name, operationReport) -> print((String) name, operationReport));
+        System.out.println("Report written to " + output.toAbsolutePath());
+    }
+
+    private static void print(String name, Object operationReport) {
+        Map<?, ?> values = (Map<?, ?>) operationReport;
+        System.out.printf("%-18s %10s %12.1f %10s %10s %10s %10s %8s %8s%n", name, values.get("count"),
+                (double) values.get("throughputPerSecond"), values.get("p50Micros"), values.get("p99Micros"),
+                values.get("p99.9Micros"), values.get("maxMicros"), values.get("errors"), values.get("dropped"));
+    }
+
+    private static String gitCommit() {
+        try {
+            Process process = new ProcessBuilder("git", "rev-parse", "--short", "HEAD").start();
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String commit = reader.readLine();
+                return process.waitFor() == 0 ? commit : null;
+            }
+        } catch (IOException ex) {
+            return null;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+}
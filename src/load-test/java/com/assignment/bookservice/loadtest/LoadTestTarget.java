@@ -0,0 +1,172 @@
+package com.assignment.bookservice.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadTestTarget.java
+ *
+ * The service under test: seeds it through the REST API and builds the
+ * requests of each {@link Operation} against the seeded data.
+ *
+ */
+public class LoadTestTarget {
+
+    private static final String[] GENRES = {"Fantasy", "Science Fiction", "Romance", "Thriller", "Mystery", "Horror", "Autobiography"};
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+    private static final int HOT_BOOKS = 10;
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String authorization;
+    private final AtomicLong titles = new AtomicLong();
+    private final List<Long> authorIds = new ArrayList<>();
+    private final List<Long> bookIds = new ArrayList<>();
+    private final Queue<Long> deletableBookIds = new ConcurrentLinkedQueue<>();
+
+    public LoadTestTarget(LoadTestConfig config, String baseUrl, HttpClient client) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        this.client = client;
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (config.getAdminUser() + ":" + config.getAdminPassword()).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Creates the seed authors and books. A quarter of the seeded books is set
+     * aside for delete operations so reads keep hitting existing books.
+     */
+    public void seed() throws IOException, InterruptedException {
+        for (int i = 0; i < config.getSeedAuthors(); i++) {
+            JsonNode author = send(post("/authors", "{\"firstName\":\"firstName" + i + "\",\"lastName\":\"lastName" + i + "\"}"));
+            authorIds.add(author.get("id").asLong());
+        }
+        List<Map<String, Object>> books = new ArrayList<>();
+        for (Long authorId : authorIds) {
+            for (int i = 0; i < config.getSeedBooksPerAuthor(); i++) {
+                books.add(newBook(authorId, ThreadLocalRandom.current()));
+                if (books.size() == 1000) {
+                    seedBooks(books);
+                    books.clear();
+                }
+            }
+        }
+        if (!books.isEmpty()) {
+            seedBooks(books);
+        }
+    }
+
+    private void seedBooks(List<Map<String, Object>> books) throws IOException, InterruptedException {
+        JsonNode response = send(post("/books/batch", objectMapper.writeValueAsString(books)));
+        for (JsonNode result : response.get("results")) {
+            long id = result.get("id").asLong();
+            if (id % 4 == 0) {
+                deletableBookIds.add(id);
+            } else {
+                bookIds.add(id);
+            }
+        }
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() >= 300) {
+            throw new IllegalStateException("Seeding failed with status " + response.statusCode() + ": " + response.body());
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    HttpRequest get(String path) {
+        return HttpRequest.newBuilder(Operation.uri(baseUrl, path))
+                .timeout(TIMEOUT)
+                .GET()
+                .build();
+    }
+
+    HttpRequest post(String path, String json) {
+        return HttpRequest.newBuilder(Operation.uri(baseUrl, path))
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    HttpRequest delete(String path) {
+        return HttpRequest.newBuilder(Operation.uri(baseUrl, path))
+                .timeout(TIMEOUT)
+                .header("Authorization", authorization)
+                .DELETE()
+                .build();
+    }
+
+    long randomBookId(ThreadLocalRandom random) {
+        return bookIds.get(random.nextInt(bookIds.size()));
+    }
+
+    /**
+     * One of the first HOT_BOOKS seeded books, so sales concentrate on a few titles.
+     */
+    long hotBookId(ThreadLocalRandom random) {
+        return bookIds.get(random.nextInt(Math.min(HOT_BOOKS, bookIds.size())));
+    }
+
+    long randomAuthorId(ThreadLocalRandom random) {
+        return authorIds.get(random.nextInt(authorIds.size()));
+    }
+
+    /**
+     * Next seeded book reserved for deletion; once they are used up the delete
+     * targets a missing id and is answered with 404.
+     */
+    long nextDeletableBookId() {
+        Long id = deletableBookIds.poll();
+        return id == null ? -1 : id;
+    }
+
+    int bookPages() {
+        return Math.max(1, (authorIds.size() * config.getSeedBooksPerAuthor()) / config.getPageSize());
+    }
+
+    int authorPages() {
+        return Math.max(1, authorIds.size() / config.getPageSize());
+    }
+
+    int pageSize() {
+        return config.getPageSize();
+    }
+
+    String newBookJson(ThreadLocalRandom random) {
+        try {
+            return objectMapper.writeValueAsString(newBook(randomAuthorId(random), random));
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private Map<String, Object> newBook(Long authorId, ThreadLocalRandom random) {
+        return Map.of(
+                "title", "load-test-" + titles.incrementAndGet(),
+                "description", "Book written during a load test",
+                "price", random.nextInt(100, 10000) / 100.0,
+                "unitsSold", random.nextInt(1000),
+                "genre", GENRES[random.nextInt(GENRES.length)],
+                "authorId", authorId);
+    }
+}
@@ -0,0 +1,65 @@
+package com.assignment.bookservice.loadtest;
+
+import com.assignment.bookservice.pagination.Cursor;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+/**
+ * Operation.java
+ *
+ * The requests the load test can issue, referenced by name in the mix.
+ *
+ */
+public enum Operation {
+
+    GET_BOOK("getBook", (target, random) -> target.get("/books/" + target.randomBookId(random))),
+    GET_BOOKS("getBooks", (target, random) -> target.get("/books?page=" + random.nextInt(target.bookPages())
+            + "&pageSize=" + target.pageSize())),
+    GET_AUTHOR("getAuthor", (target, random) -> target.get("/authors/" + target.randomAuthorId(random))),
+    GET_AUTHORS("getAuthors", (target, random) -> target.get("/authors?page=" + random.nextInt(target.authorPages())
+            + "&pageSize=" + target.pageSize())),
+    REACTIVE_GET_BOOK("reactiveGetBook", (target, random) -> target.get("/reactive/books/" + target.randomBookId(random))),
+    REACTIVE_GET_BOOKS("reactiveGetBooks", (target, random) -> target.get("/reactive/books?after="
+            + Cursor.encode(target.randomBookId(random)) + "&limit=" + target.pageSize())),
+    REACTIVE_GET_AUTHORS("reactiveGetAuthors", (target, random) -> target.get("/reactive/authors?after="
+            + Cursor.encode(target.randomAuthorId(random)) + "&limit=" + target.pageSize())),
+    POST_BOOK("postBook", (target, random) -> target.post("/books", target.newBookJson(random))),
+    RECORD_SALE("recordSale", (target, random) -> target.post("/books/" + target.hotBookId(random) + "/sales",
+            "{\"quantity\":" + random.nextInt(1, 5) + "}")),
+    DELETE_BOOK("deleteBook", (target, random) -> target.delete("/books/" + target.nextDeletableBookId()));
+
+    private final String name;
+    private final BiFunction<LoadTestTarget, ThreadLocalRandom, HttpRequest> requestFactory;
+
+    Operation(String name, BiFunction<LoadTestTarget, ThreadLocalRandom, HttpRequest> requestFactory) {
+        this.name = name;
+        this.requestFactory = requestFactory;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public HttpRequest request(LoadTestTarget target) {
+        return requestFactory.apply(target, ThreadLocalRandom.current());
+    }
+
+    public static Operation fromName(String name) {
+        for (Operation operation : values()) {
+            if (operation.name.equals(name)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + name);
+    }
+
+    /**
+     * Uri helper kept here so the request factories stay one-liners.
+     */
+    static URI uri(String baseUrl, String path) {
+        return URI.create(baseUrl + path);
+    }
+}
@@ -0,0 +1,81 @@
+package com.assignment.bookservice.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * OperationStats.java
+ *
+ * Latency histogram (microseconds, measured from the intended send time so
+ * queueing delays are not hidden) and outcome counters of one operation.
+ *
+ */
+public class OperationStats {
+
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+
+    private final Histogram histogram = new ConcurrentHistogram(TimeUnit.MINUTES.toMicros(1), 3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Map<Integer, LongAdder> statusCodes = new ConcurrentHashMap<>();
+
+    public void record(long latencyNanos, int statusCode) {
+        histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), histogram.getHighestTrackableValue()));
+        statusCodes.computeIfAbsent(statusCode, code -> new LongAdder()).increment();
+        if (statusCode >= 500) {
+            errors.increment();
+        }
+    }
+
+    public void recordFailure(long latencyNanos) {
+        histogram.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), histogram.getHighestTrackableValue()));
+        errors.increment();
+    }
+
+    public void recordDropped() {
+        dropped.increment();
+    }
+
+    /**
+     * Point-in-time copy of the histogram, safe to read while late responses are still being recorded.
+     */
+    Histogram snapshot() {
+        return histogram.copy();
+    }
+
+    public Map<String, Object> toMap(double durationSeconds) {
+        Histogram snapshot = snapshot();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", snapshot.getTotalCount());
+        map.put("throughputPerSecond", snapshot.getTotalCount() / durationSeconds);
+        map.put("errors", errors.sum());
+        map.put("dropped", dropped.sum());
+        Map<String, Long> codes = new LinkedHashMap<>();
+        statusCodes.forEach((code, count) -> codes.put(String.valueOf(code), count.sum()));
+        map.put("statusCodes", codes);
+        map.putAll(latencies(snapshot));
+        return map;
+    }
+
+    static Map<String, Object> latencies(Histogram histogram) {
+        Map<String, Object> latencies = new LinkedHashMap<>();
+        latencies.put("meanMicros", histogram.getMean());
+        for (double percentile : PERCENTILES) {
+            latencies.put("p" + String.valueOf(percentile).replace(".0", "") + "Micros", histogram.getValueAtPercentile(percentile));
+        }
+        latencies.put("maxMicros", histogram.getMaxValue());
+        ByteBuffer buffer = ByteBuffer.allocate(histogram.getNeededByteBufferCapacity());
+        int length = histogram.encodeIntoCompressedByteBuffer(buffer);
+        latencies.put("histogram", Base64.getEncoder().encodeToString(Arrays.copyOf(buffer.array(), length)));
+        return latencies;
+    }
+}
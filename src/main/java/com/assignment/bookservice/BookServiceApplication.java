@@ -2,8 +2,15 @@ package com.assignment.bookservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
 
-@SpringBootApplication
+/**
+ * The R2DBC auto-configuration is excluded: the reactive read path is opt-in and
+ * configured by ReactiveConfiguration, and its transaction manager would compete
+ * with the JPA one.
+ */
+@SpringBootApplication(exclude = {R2dbcAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
 public class BookServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,65 @@
+package com.assignment.bookservice.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Admission.java
+ *
+ * Outcome of admitting a request. An admitted request holds a slot of its
+ * concurrency limit until it is released; a rejected one carries the reason
+ * and when to retry.
+ *
+ */
+public final class Admission {
+
+    private final RejectionReason rejectionReason;
+    private final long retryAfterNanos;
+    private final ConcurrencyLimit concurrencyLimit;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private Admission(RejectionReason rejectionReason, long retryAfterNanos, ConcurrencyLimit concurrencyLimit) {
+        this.rejectionReason = rejectionReason;
+        this.retryAfterNanos = retryAfterNanos;
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    static Admission admitted(ConcurrencyLimit concurrencyLimit) {
+        return new Admission(null, 0, concurrencyLimit);
+    }
+
+    static Admission rejected(RejectionReason rejectionReason, long retryAfterNanos) {
+        return new Admission(rejectionReason, retryAfterNanos, null);
+    }
+
+    public boolean isAdmitted() {
+        return rejectionReason == null;
+    }
+
+    public RejectionReason getRejectionReason() {
+        return rejectionReason;
+    }
+
+    /**
+     * Whole seconds to wait before retrying, at least one.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    /**
+     * Frees the concurrency slot of an admitted request; later calls do nothing.
+     */
+    public void release() {
+        if (concurrencyLimit != null && released.compareAndSet(false, true)) {
+            concurrencyLimit.release();
+        }
+    }
+
+    public enum RejectionReason {
+
+        CLIENT_RATE,
+        ENDPOINT_RATE,
+        CONCURRENCY
+    }
+}
@@ -0,0 +1,158 @@
+package com.assignment.bookservice.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * AdmissionControlFilter.java
+ *
+ * Servlet filter rejecting requests that the AdmissionController does not
+ * admit before they reach authentication or a controller. A client over its
+ * rate gets 429 Too Many Requests; an endpoint over its shared rate or a cost
+ * class over its concurrency limit gets 503 Service Unavailable. Both carry a Retry-After.
+ * Actuator and H2 console requests are not limited.
+ *
+ * Only the endpoints the application maps get a bucket of their own. Requests
+ * to any other path share one bucket, so requests to made-up paths can neither
+ * grow the buckets without bound nor reset the bucket of a real endpoint.
+ *
+ */
+@Slf4j
+@AllArgsConstructor
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /**
+     * Endpoint shared by the requests to paths the application does not map.
+     */
+    static final String UNMATCHED_ENDPOINT = "unmatched";
+
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+(?=/|$)");
+    private static final Pattern PATH_VARIABLE = Pattern.compile("\\{[^}]+}");
+
+    private final AdmissionController admissionController;
+    private final Set<String> endpoints;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = pathWithinApplication(request);
+        return path.startsWith("/actuator") || path.startsWith("/h2-console");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = pathWithinApplication(request);
+        RequestCost cost = RequestCost.of(request.getMethod(), path, request.getQueryString());
+        int tokens = RequestCost.tokensOf(request.getMethod(), request.getQueryString());
+        String endpoint = endpoint(request.getMethod(), path);
+        if (!endpoints.contains(endpoint)) {
+            endpoint = UNMATCHED_ENDPOINT;
+        }
+        Admission admission = admissionController.admit(request.getRemoteAddr(), endpoint, cost, tokens);
+        if (!admission.isAdmitted()) {
+            reject(request, response, admission);
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // streamed responses keep their slot until they complete
+                request.getAsyncContext().addListener(new ReleasingListener(admission));
+            } else {
+                admission.release();
+            }
+        }
+    }
+
+    private static void reject(HttpServletRequest request, HttpServletResponse response, Admission admission)
+            throws IOException {
+        boolean clientRateLimited = admission.getRejectionReason() == Admission.RejectionReason.CLIENT_RATE;
+        HttpStatus status = clientRateLimited ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.SERVICE_UNAVAILABLE;
+        log.debug("Rejected {} {} from {}: {}", request.getMethod(), request.getRequestURI(), request.getRemoteAddr(),
+                admission.getRejectionReason());
+        response.setStatus(status.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(admission.getRetryAfterSeconds()));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.getWriter().write(clientRateLimited
+                ? "Too many requests, retry after " + admission.getRetryAfterSeconds() + " seconds"
+                : "Service is busy, retry after " + admission.getRetryAfterSeconds() + " seconds");
+    }
+
+    /**
+     * Endpoint of a request for its shared bucket: the method and the path with
+     * numeric ids replaced, e.g. {@code GET /books/{id}}.
+     */
+    static String endpoint(String method, String path) {
+        String normalizedPath = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        return method + " " + ID_SEGMENT.matcher(normalizedPath).replaceAll("/{id}");
+    }
+
+    /**
+     * Endpoints of the handler methods of the given mapping, in the form of
+     * {@link #endpoint}: one per request method and path pattern, with path
+     * variables as {@code {id}}.
+     */
+    public static Set<String> endpointsOf(RequestMappingHandlerMapping handlerMapping) {
+        Set<String> endpoints = new HashSet<>();
+        for (RequestMappingInfo mapping : handlerMapping.getHandlerMethods().keySet()) {
+            Set<RequestMethod> methods = mapping.getMethodsCondition().getMethods();
+            for (RequestMethod method : methods.isEmpty() ? EnumSet.allOf(RequestMethod.class) : methods) {
+                for (String pattern : mapping.getPatternValues()) {
+                    endpoints.add(mappedEndpoint(method.name(), pattern));
+                }
+            }
+        }
+        return endpoints;
+    }
+
+    static String mappedEndpoint(String method, String pattern) {
+        return endpoint(method, PATH_VARIABLE.matcher(pattern).replaceAll("{id}"));
+    }
+
+    private static String pathWithinApplication(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    @AllArgsConstructor
+    private static final class ReleasingListener implements AsyncListener {
+
+        private final Admission admission;
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            admission.release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
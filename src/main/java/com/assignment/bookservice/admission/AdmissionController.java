@@ -0,0 +1,126 @@
+package com.assignment.bookservice.admission;
+
+import com.assignment.bookservice.admission.Admission.RejectionReason;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * AdmissionController.java
+ *
+ * Decides whether a request is served, per cost class: first against the
+ * token bucket of its client, then against the bucket its endpoint shares
+ * with all clients, then against the limit of concurrent requests. A request
+ * rejected by a later step gets back the tokens the earlier ones took, so a
+ * client is never charged for load that others caused to be shed. Every step
+ * is lock-free, so a busy limiter never makes requests wait for each other.
+ * As each endpoint has its own bucket, a flood of one listing does not use up
+ * the rate of the others. Endpoints are expected to be a bounded set, such as
+ * the handler mappings of the application.
+ *
+ * Rejections are counted in book.service.admission.rejections and the
+ * requests in flight are published as book.service.admission.in.flight.
+ *
+ */
+public class AdmissionController {
+
+    public static final String REJECTIONS_METRIC = "book.service.admission.rejections";
+    public static final String IN_FLIGHT_METRIC = "book.service.admission.in.flight";
+
+    private final Map<RequestCost, CostClass> costClasses = new EnumMap<>(RequestCost.class);
+    private final LongSupplier nanoClock;
+
+    public AdmissionController(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, System::nanoTime);
+    }
+
+    AdmissionController(AdmissionProperties properties, MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        for (RequestCost cost : RequestCost.values()) {
+            costClasses.put(cost, new CostClass(cost, properties, meterRegistry));
+        }
+    }
+
+    /**
+     * Admits a request of the given client to the given endpoint, e.g. {@code GET /books/{id}}.
+     */
+    public Admission admit(String clientId, String endpoint, RequestCost cost) {
+        return admit(clientId, endpoint, cost, 1);
+    }
+
+    /**
+     * Admits a request that takes the given number of tokens from its client and endpoint buckets.
+     */
+    public Admission admit(String clientId, String endpoint, RequestCost cost, int tokens) {
+        CostClass costClass = costClasses.get(cost);
+        long now = nanoClock.getAsLong();
+        TokenBucket clientBucket = costClass.clientBuckets.get(clientId, id -> costClass.newClientBucket(now));
+        long wait = clientBucket.tryAcquire(now, tokens);
+        if (wait > 0) {
+            return costClass.reject(RejectionReason.CLIENT_RATE, wait);
+        }
+        TokenBucket endpointBucket = costClass.endpointBuckets.computeIfAbsent(endpoint, key -> costClass.newEndpointBucket(now));
+        wait = endpointBucket.tryAcquire(now, tokens);
+        if (wait > 0) {
+            clientBucket.refund(tokens);
+            return costClass.reject(RejectionReason.ENDPOINT_RATE, wait);
+        }
+        if (!costClass.concurrencyLimit.tryAcquire()) {
+            clientBucket.refund(tokens);
+            endpointBucket.refund(tokens);
+            return costClass.reject(RejectionReason.CONCURRENCY, 0);
+        }
+        return Admission.admitted(costClass.concurrencyLimit);
+    }
+
+    private static final class CostClass {
+
+        private final AdmissionProperties.Limits limits;
+        private final Map<String, TokenBucket> endpointBuckets = new ConcurrentHashMap<>();
+        private final ConcurrencyLimit concurrencyLimit;
+        private final Cache<String, TokenBucket> clientBuckets;
+        private final Map<RejectionReason, Counter> rejections = new EnumMap<>(RejectionReason.class);
+
+        private CostClass(RequestCost cost, AdmissionProperties properties, MeterRegistry meterRegistry) {
+            this.limits = properties.getLimits(cost);
+            this.concurrencyLimit = new ConcurrencyLimit(limits.getMaxConcurrency());
+            this.clientBuckets = Caffeine.newBuilder()
+                    .expireAfterAccess(properties.getClientIdleTimeout())
+                    .maximumSize(properties.getMaxClients())
+                    .build();
+            String costTag = cost.name().toLowerCase(Locale.ROOT);
+            for (RejectionReason reason : RejectionReason.values()) {
+                rejections.put(reason, Counter.builder(REJECTIONS_METRIC)
+                        .description("Requests rejected by admission control")
+                        .tag("cost", costTag)
+                        .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                        .register(meterRegistry));
+            }
+            Gauge.builder(IN_FLIGHT_METRIC, concurrencyLimit, ConcurrencyLimit::inFlight)
+                    .description("Requests admitted and not yet completed")
+                    .tag("cost", costTag)
+                    .register(meterRegistry);
+        }
+
+        private TokenBucket newClientBucket(long now) {
+            return new TokenBucket(limits.getClientRate(), limits.getClientBurst(), now);
+        }
+
+        private TokenBucket newEndpointBucket(long now) {
+            return new TokenBucket(limits.getEndpointRate(), limits.getEndpointBurst(), now);
+        }
+
+        private Admission reject(RejectionReason reason, long retryAfterNanos) {
+            rejections.get(reason).increment();
+            return Admission.rejected(reason, retryAfterNanos);
+        }
+    }
+}
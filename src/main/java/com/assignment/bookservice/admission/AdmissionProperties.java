@@ -0,0 +1,55 @@
+package com.assignment.bookservice.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * AdmissionProperties.java
+ *
+ * Limits of the admission control under book-service.admission, one set per
+ * request cost class.
+ *
+ */
+@Data
+@ConfigurationProperties(prefix = "book-service.admission")
+public class AdmissionProperties {
+
+    public static final String ENABLED_PROPERTY = "book-service.admission.enabled";
+
+    private Limits cheap = new Limits(50, 100, 2000, 2000, 64);
+    private Limits expensive = new Limits(2, 5, 20, 20, 4);
+
+    /**
+     * How long the bucket of a client that sent no requests is kept.
+     */
+    private Duration clientIdleTimeout = Duration.ofMinutes(1);
+    private long maxClients = 10_000;
+
+    public Limits getLimits(RequestCost cost) {
+        return cost == RequestCost.EXPENSIVE ? expensive : cheap;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limits {
+
+        /**
+         * Requests per second and burst size allowed to each client.
+         */
+        private double clientRate;
+        private int clientBurst;
+
+        /**
+         * Requests per second and burst size allowed to all clients together on each endpoint.
+         */
+        private double endpointRate;
+        private int endpointBurst;
+
+        private int maxConcurrency;
+    }
+}
@@ -0,0 +1,43 @@
+package com.assignment.bookservice.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ConcurrencyLimit.java
+ *
+ * Lock-free limit on the number of requests in flight. Requests over the
+ * limit are rejected right away instead of waiting.
+ *
+ */
+public class ConcurrencyLimit {
+
+    private final int limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public ConcurrencyLimit(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive");
+        }
+        this.limit = limit;
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,74 @@
+package com.assignment.bookservice.admission;
+
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * RequestCost.java
+ *
+ * Cost class of a request, each with its own limits. Offset pages (which run
+ * a count query), exports, batch writes and bulk deletes are expensive; point
+ * lookups, cursor pages, multi-gets, search, top-N and single writes are cheap.
+ *
+ */
+public enum RequestCost {
+
+    CHEAP,
+    EXPENSIVE;
+
+    private static final Set<String> LISTING_PATHS = Set.of("/authors", "/books");
+    private static final Set<String> EXPORT_PATHS = Set.of("/books/export", "/reactive/books/stream");
+    private static final Pattern CURSOR_QUERY = Pattern.compile("(^|&)(after|limit)=");
+    private static final Pattern AUTHOR_PATH = Pattern.compile("/authors/[^/]+");
+    private static final Pattern MULTI_GET_QUERY = Pattern.compile("(^|&)ids=");
+    private static final Pattern ID_SEPARATOR = Pattern.compile(",|%2C", Pattern.CASE_INSENSITIVE);
+
+    /**
+     * Ids of a multi-get that take one token, as they stand in for as many point lookups.
+     */
+    static final int IDS_PER_TOKEN = 10;
+
+    /**
+     * Classifies a request by its method and its path below the context path.
+     */
+    public static RequestCost of(String method, String path, String query) {
+        String normalizedPath = path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        switch (method) {
+            case "GET":
+                if (EXPORT_PATHS.contains(normalizedPath)) {
+                    return EXPENSIVE;
+                }
+                // cursor pages are an index seek without a count; a multi-get is weighed by its tokens
+                boolean seek = query != null
+                        && (CURSOR_QUERY.matcher(query).find() || MULTI_GET_QUERY.matcher(query).find());
+                return LISTING_PATHS.contains(normalizedPath) && !seek ? EXPENSIVE : CHEAP;
+            case "POST":
+                return normalizedPath.equals("/books/batch") ? EXPENSIVE : CHEAP;
+            case "DELETE":
+                if (normalizedPath.equals("/books")) {
+                    return EXPENSIVE;
+                }
+                boolean cascade = query != null && query.contains("cascade=true");
+                return cascade && AUTHOR_PATH.matcher(normalizedPath).matches() ? EXPENSIVE : CHEAP;
+            default:
+                return CHEAP;
+        }
+    }
+
+    /**
+     * Tokens a request takes from its buckets: one per IDS_PER_TOKEN ids for a
+     * multi-get, one for any other request.
+     */
+    public static int tokensOf(String method, String query) {
+        if (!"GET".equals(method) || query == null) {
+            return 1;
+        }
+        int ids = 0;
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("ids=")) {
+                ids += ID_SEPARATOR.split(parameter.substring("ids=".length()), -1).length;
+            }
+        }
+        return Math.max(1, (ids + IDS_PER_TOKEN - 1) / IDS_PER_TOKEN);
+    }
+}
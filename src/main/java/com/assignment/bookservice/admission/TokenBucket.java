@@ -0,0 +1,73 @@
+package com.assignment.bookservice.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TokenBucket.java
+ *
+ * Lock-free token bucket, implemented as the generic cell rate algorithm: the
+ * whole state is the time at which the bucket would be full again, updated
+ * with a compare-and-set. A bucket starts full with {@code burst} tokens and
+ * regains {@code ratePerSecond} tokens per second.
+ *
+ */
+public class TokenBucket {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private final long interval;
+    private final int burst;
+    private final long tolerance;
+    private final AtomicLong theoreticalArrivalTime;
+
+    public TokenBucket(double ratePerSecond, int burst, long nowNanos) {
+        if (ratePerSecond <= 0 || burst < 1) {
+            throw new IllegalArgumentException("Rate and burst must be positive");
+        }
+        this.interval = Math.max(1, (long) (NANOS_PER_SECOND / ratePerSecond));
+        this.burst = burst;
+        this.tolerance = interval * (burst - 1);
+        this.theoreticalArrivalTime = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if there is one. Returns 0 if a token was taken, otherwise
+     * the nanoseconds until the next token is available.
+     */
+    public long tryAcquire(long nowNanos) {
+        return tryAcquire(nowNanos, 1);
+    }
+
+    /**
+     * Takes the given number of tokens at once if there are enough, otherwise
+     * none. A request for more tokens than the burst takes the whole burst, so
+     * it can still be admitted once the bucket is full.
+     */
+    public long tryAcquire(long nowNanos, int tokens) {
+        long increment = increment(tokens);
+        while (true) {
+            long arrivalTime = theoreticalArrivalTime.get();
+            long start = arrivalTime - nowNanos > 0 ? arrivalTime : nowNanos;
+            long wait = start + increment - interval - nowNanos - tolerance;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrivalTime.compareAndSet(arrivalTime, start + increment)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back tokens taken by a successful tryAcquire with the same count,
+     * e.g. when a later check rejects the request they were taken for. A bucket
+     * never holds more than its burst, however much is refunded.
+     */
+    public void refund(int tokens) {
+        theoreticalArrivalTime.addAndGet(-increment(tokens));
+    }
+
+    private long increment(int tokens) {
+        return interval * Math.max(1, Math.min(tokens, burst));
+    }
+}
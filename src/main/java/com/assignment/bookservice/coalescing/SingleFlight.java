@@ -0,0 +1,67 @@
+package com.assignment.bookservice.coalescing;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * SingleFlight.java
+ *
+ * Coalesces concurrent identical reads: while a load for a key is in flight,
+ * further callers with the same key wait for it and share its result or its
+ * exception instead of loading again, so there is at most one load per key at
+ * a time. Nothing is kept once the load completes; a later caller loads again.
+ *
+ * Keys should include whatever makes an earlier result unfit to share, e.g. the
+ * catalog version, so a read started after a write never joins a load that
+ * started before it.
+ *
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    public V load(K key, Supplier<V> loader) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            return join(existing);
+        }
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException | Error ex) {
+            inFlight.remove(key, flight);
+            flight.completeExceptionally(ex);
+            throw ex;
+        }
+        // removed before completing, so callers arriving after the load never get its result
+        inFlight.remove(key, flight);
+        flight.complete(value);
+        return value;
+    }
+
+    /**
+     * Number of keys currently being loaded.
+     */
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+
+    private static <V> V join(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException ex) {
+            Throwable cause = ex.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw ex;
+        }
+    }
+}
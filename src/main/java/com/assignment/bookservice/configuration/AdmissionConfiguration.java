@@ -0,0 +1,42 @@
+package com.assignment.bookservice.configuration;
+
+import com.assignment.bookservice.admission.AdmissionControlFilter;
+import com.assignment.bookservice.admission.AdmissionController;
+import com.assignment.bookservice.admission.AdmissionProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+/**
+ * AdmissionConfiguration.java
+ *
+ * Registering the admission control filter, enabled with
+ * book-service.admission.enabled. It runs ahead of Spring Security, so shed
+ * requests never pay for authentication.
+ *
+ */
+@Configuration
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ConditionalOnProperty(name = AdmissionProperties.ENABLED_PROPERTY, havingValue = "true")
+public class AdmissionConfiguration {
+
+    @Bean
+    public AdmissionController admissionController(AdmissionProperties properties, MeterRegistry meterRegistry) {
+        return new AdmissionController(properties, meterRegistry);
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionController admissionController,
+            @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping) {
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(
+                new AdmissionControlFilter(admissionController, AdmissionControlFilter.endpointsOf(handlerMapping)));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
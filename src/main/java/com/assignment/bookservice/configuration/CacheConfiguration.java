@@ -0,0 +1,27 @@
+package com.assignment.bookservice.configuration;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * CacheConfiguration.java
+ *
+ * Enabling the in-process read-through caches for book and author point lookups.
+ * The caches are Caffeine caches (size bounded, TTL and frequency-aware eviction)
+ * configured through spring.cache in application.yaml; their hit, miss and
+ * eviction statistics are published as cache.* metrics.
+ *
+ * The cache advice is ordered outside the transaction advice so evictions run
+ * after commit, once the connection is back in the pool: a synchronized cache
+ * load holds its entry lock while it waits for a connection, and an eviction
+ * that still held one could otherwise deadlock against it under load.
+ *
+ */
+@Configuration
+@EnableCaching(order = Ordered.LOWEST_PRECEDENCE - 1)
+public class CacheConfiguration {
+
+    public static final String BOOKS_CACHE = "books";
+    public static final String AUTHORS_CACHE = "authors";
+}
@@ -0,0 +1,49 @@
+package com.assignment.bookservice.configuration;
+
+import com.assignment.bookservice.metrics.CountingDataSource;
+import com.assignment.bookservice.metrics.RequestMetricsInterceptor;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+/**
+ * MetricsConfiguration.java
+ *
+ * Registering the per-request latency, SQL statement and connection metrics
+ * exposed at /actuator/metrics/book.service.requests*
+ *
+ */
+@Configuration
+@AllArgsConstructor
+public class MetricsConfiguration implements WebMvcConfigurer {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Wraps the application DataSource so statements and connections can be
+     * attributed to the request that used them.
+     */
+    @Bean
+    public static BeanPostProcessor countingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource && !(bean instanceof CountingDataSource)) {
+                    return new CountingDataSource((DataSource) bean);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new RequestMetricsInterceptor(meterRegistry));
+    }
+}
@@ -0,0 +1,63 @@
+package com.assignment.bookservice.configuration;
+
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * ReactiveConfiguration.java
+ *
+ * Opt-in non-blocking read path, enabled with book-service.reactive.enabled.
+ * Reads under /reactive go through an R2DBC DatabaseClient, so a request does
+ * not hold a servlet thread or a JDBC connection while it waits on the database.
+ * Writes keep using JPA.
+ *
+ * The connection factory is created from book-service.reactive.url when it is
+ * set. Otherwise it opens the H2 database of the JDBC DataSource, which stands
+ * in for a networked database with a native R2DBC driver locally.
+ *
+ */
+@Configuration
+@ConditionalOnProperty(name = ReactiveConfiguration.ENABLED_PROPERTY, havingValue = "true")
+public class ReactiveConfiguration {
+
+    public static final String ENABLED_PROPERTY = "book-service.reactive.enabled";
+    public static final String URL_PROPERTY = "book-service.reactive.url";
+
+    private static final String H2_JDBC_PREFIX = "jdbc:h2:";
+
+    /**
+     * The connection factory is deliberately not a bean: the DataSource
+     * auto-configuration backs off when one is present.
+     */
+    @Bean
+    public DatabaseClient databaseClient(Environment environment, DataSourceProperties dataSourceProperties) {
+        return DatabaseClient.create(connectionFactory(environment, dataSourceProperties));
+    }
+
+    private static ConnectionFactory connectionFactory(Environment environment, DataSourceProperties dataSourceProperties) {
+        String url = environment.getProperty(URL_PROPERTY);
+        if (url != null) {
+            return ConnectionFactories.get(url);
+        }
+        String jdbcUrl = dataSourceProperties.determineUrl();
+        if (jdbcUrl == null || !jdbcUrl.startsWith(H2_JDBC_PREFIX)) {
+            throw new IllegalStateException(URL_PROPERTY + " must be set when the datasource is not H2: " + jdbcUrl);
+        }
+        H2ConnectionConfiguration.Builder configuration = H2ConnectionConfiguration.builder()
+                .url(jdbcUrl.substring(H2_JDBC_PREFIX.length()))
+                .username(dataSourceProperties.determineUsername());
+        String password = dataSourceProperties.determinePassword();
+        if (password != null) {
+            configuration.password(password);
+        }
+        return new H2ConnectionFactory(configuration.build());
+    }
+}
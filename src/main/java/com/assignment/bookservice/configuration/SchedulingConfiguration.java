@@ -0,0 +1,15 @@
+package com.assignment.bookservice.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * SchedulingConfiguration.java
+ *
+ * Enabling the scheduled background jobs (see the job package).
+ *
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -1,14 +1,22 @@
 package com.assignment.bookservice.configuration;
 
+import com.assignment.bookservice.security.CachingAuthenticationProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.InMemoryUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
 
+import java.time.Duration;
+
 /**
  * SecurityConfiguration.java
  *
@@ -38,15 +46,34 @@ public class SecurityConfiguration {
     }
 
     /**
-     * Setting up Admin Authentication Credentials
+     * Setting up Admin Authentication Credentials, stored as a bcrypt hash
      */
     @Bean
-    public InMemoryUserDetailsManager userDetailsService() {
+    public InMemoryUserDetailsManager userDetailsService(@Value("${book-service.security.admin-password}") String adminPassword) {
         UserDetails user = User
                 .withUsername("admin")
-                .password("{noop}password")
+                .password(adminPassword)
                 .roles("ADMIN")
                 .build();
         return new InMemoryUserDetailsManager(user);
     }
+
+    @Bean
+    public PasswordEncoder passwordEncoder() {
+        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
+    }
+
+    /**
+     * Checking credentials against the password hash only once per cache TTL
+     */
+    @Bean
+    public CachingAuthenticationProvider authenticationProvider(
+            UserDetailsService userDetailsService,
+            PasswordEncoder passwordEncoder,
+            @Value("${book-service.security.authentication-cache-ttl}") Duration authenticationCacheTtl) {
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return new CachingAuthenticationProvider(provider, authenticationCacheTtl);
+    }
 }
@@ -3,20 +3,29 @@ package com.assignment.bookservice.controller;
 import com.assignment.bookservice.dto.AuthorDto;
 import com.assignment.bookservice.dto.AuthorResponseDto;
 import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.exception.AuthorHasBooksException;
 import com.assignment.bookservice.exception.AuthorNotFoundException;
+import com.assignment.bookservice.exception.InvalidCursorException;
+import com.assignment.bookservice.pagination.CursorPage;
+import com.assignment.bookservice.response.BulkDeleteResponse;
+import com.assignment.bookservice.response.CursorPaginatedResponse;
+import com.assignment.bookservice.response.MultiGetResponse;
 import com.assignment.bookservice.response.PaginatedResponse;
+import com.assignment.bookservice.sales.SalesCounter;
 import com.assignment.bookservice.service.AuthorService;
+import com.assignment.bookservice.service.BookService;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.util.List;
 
 import static java.lang.String.format;
-import static org.springframework.util.CollectionUtils.isEmpty;
 
 /**
  * AuthorController.java
@@ -32,13 +41,27 @@ import static org.springframework.util.CollectionUtils.isEmpty;
 public class AuthorController {
 
     private final AuthorService authorService;
+    private final BookService bookService;
+    private final SalesCounter salesCounter;
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getAuthor(@PathVariable Long id) {
+    public ResponseEntity<Object> getAuthor(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
             log.debug("Retrieving author with id {}", id);
+            if (ifNoneMatch != null) {
+                String etag = ETags.strong(authorService.findAuthorVersion(id), salesCounter.pendingUnitsOfAuthor(id));
+                if (ETags.matches(ifNoneMatch, etag)) {
+                    return ETags.notModified(etag);
+                }
+            }
+            // read before the sales are added so a concurrent sale can only make the tag stale
+            long pendingUnits = salesCounter.pendingUnitsOfAuthor(id);
+            AuthorResponseDto author = salesCounter.applyTo(authorService.findById(id));
             return ResponseEntity.status(HttpStatus.OK)
-                    .body(authorService.findById(id));
+                    .eTag(ETags.strong(author.getVersion(), pendingUnits))
+                    .body(author);
         } catch (AuthorNotFoundException ex) {
             log.warn(ex.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -68,15 +91,35 @@ public class AuthorController {
 
     @GetMapping
     public ResponseEntity<Object> getAuthors(
-            @RequestParam(name = "page") Integer pageNumber,
-            @RequestParam(name = "pageSize") Integer pageSize) {
+            @RequestParam(name = "page", required = false) Integer pageNumber,
+            @RequestParam(name = "pageSize", required = false) Integer pageSize,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "includeBooks", defaultValue = "true") boolean includeBooks,
+            @RequestParam(name = "ids", required = false) List<Long> ids,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ids != null) {
+            return getAuthorsByIds(ids, includeBooks);
+        }
+        if (after != null || limit != null) {
+            return getAuthorsAfter(after, limit == null ? CursorPage.DEFAULT_LIMIT : limit, includeBooks, ifNoneMatch);
+        }
+        if (pageNumber == null || pageSize == null) {
+            return ResponseEntity.badRequest()
+                    .body("Either page and pageSize or a cursor limit must be provided");
+        }
         try {
-            Page<AuthorResponseDto> authors = authorService.findAuthors(pageNumber, pageSize);
-            return ResponseEntity.ok(
-                    PaginatedResponse.<AuthorResponseDto>builder()
+            String etag = ETags.weak(authorService.getCatalogVersion(), salesCounter.recordedSales());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.notModified(etag);
+            }
+            Page<AuthorResponseDto> authors = authorService.findAuthors(pageNumber, pageSize, includeBooks);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .body(PaginatedResponse.<AuthorResponseDto>builder()
                             .recordCount(authors.getNumberOfElements())
                             .totalRecordCount(authors.getTotalElements())
-                            .response(authors.getContent())
+                            .response(salesCounter.applyToAuthors(authors.getContent()))
                             .build());
         } catch (Exception ex) {
             String errorMsg = format("Exception occurred when getting authors with page number %s and page size %s",
@@ -87,11 +130,65 @@ public class AuthorController {
         }
     }
 
+    private ResponseEntity<Object> getAuthorsByIds(List<Long> ids, boolean includeBooks) {
+        if (ids.size() > MultiGetResponse.MAX_IDS) {
+            return ResponseEntity.badRequest()
+                    .body(format("At most %s ids can be requested", MultiGetResponse.MAX_IDS));
+        }
+        try {
+            MultiGetResponse<AuthorResponseDto> authors = authorService.findByIds(ids, includeBooks);
+            authors.setResponse(salesCounter.applyToAuthors(authors.getResponse()));
+            return ResponseEntity.ok(authors);
+        } catch (Exception ex) {
+            String errorMsg = format("Exception occurred when fetching %s authors by id", ids.size());
+            log.warn(errorMsg, ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorMsg);
+        }
+    }
+
+    private ResponseEntity<Object> getAuthorsAfter(String after, int limit, boolean includeBooks, String ifNoneMatch) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest()
+                    .body("Limit must be greater than zero");
+        }
+        try {
+            String etag = ETags.weak(authorService.getCatalogVersion(), salesCounter.recordedSales());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.notModified(etag);
+            }
+            CursorPage<AuthorResponseDto> authors = authorService.findAuthorsAfter(after, limit, includeBooks);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .body(CursorPaginatedResponse.<AuthorResponseDto>builder()
+                            .recordCount(authors.getContent().size())
+                            .nextCursor(authors.getNextCursor())
+                            .response(salesCounter.applyToAuthors(authors.getContent()))
+                            .build());
+        } catch (InvalidCursorException ex) {
+            log.warn(ex.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ex.getMessage());
+        } catch (Exception ex) {
+            String errorMsg = format("Exception occurred when getting authors after cursor %s with limit %s", after, limit);
+            log.warn(errorMsg, ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorMsg);
+        }
+    }
+
+    /**
+     * Deletes an author without books, or with cascade=true the author and all of its books.
+     */
     @DeleteMapping("/{id}")
-    public ResponseEntity<Object> deleteAuthor(@PathVariable Long id) {
+    public ResponseEntity<Object> deleteAuthor(
+            @PathVariable Long id,
+            @RequestParam(name = "cascade", defaultValue = "false") boolean cascade) {
         try {
-            Author author = authorService.findById(id);
-            if (isEmpty(author.getBooks())) {
+            if (cascade) {
+                BulkDeleteResponse response = bookService.deleteAuthorWithBooks(id);
+                log.debug("Deleted author with id {} and {} books", id, response.getDeletedCount());
+            } else {
                 authorService.deleteAuthor(id);
             }
             return ResponseEntity.noContent().build();
@@ -99,6 +196,10 @@ public class AuthorController {
             log.warn(ex.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(ex.getMessage());
+        } catch (AuthorHasBooksException ex) {
+            log.warn(ex.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ex.getMessage());
         } catch (Exception ex) {
             String errorMsg = "Exception occurred when deleting author with id: " + id;
             log.warn(errorMsg, ex);
@@ -1,20 +1,46 @@
 package com.assignment.bookservice.controller;
 
 import com.assignment.bookservice.dto.BookDto;
-import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.dto.SaleDto;
+import com.assignment.bookservice.entity.Genre;
 import com.assignment.bookservice.exception.AuthorNotFoundException;
 import com.assignment.bookservice.exception.BookAlreadyExistsException;
 import com.assignment.bookservice.exception.BookNotFoundException;
+import com.assignment.bookservice.exception.InvalidCursorException;
+import com.assignment.bookservice.pagination.CursorPage;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.ranking.RankingOrder;
+import com.assignment.bookservice.response.BatchResponse;
+import com.assignment.bookservice.response.BulkDeleteResponse;
+import com.assignment.bookservice.response.CursorPaginatedResponse;
+import com.assignment.bookservice.response.MultiGetResponse;
 import com.assignment.bookservice.response.PaginatedResponse;
+import com.assignment.bookservice.response.RankingResponse;
+import com.assignment.bookservice.response.SearchResponse;
+import com.assignment.bookservice.sales.SalesCounter;
+import com.assignment.bookservice.search.BookSearchIndex;
 import com.assignment.bookservice.service.BookService;
+import com.assignment.bookservice.service.SalesService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
 import static java.lang.String.format;
 
@@ -31,13 +57,30 @@ import static java.lang.String.format;
 @RequestMapping("/books")
 public class BookController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final BookService bookService;
+    private final SalesService salesService;
+    private final SalesCounter salesCounter;
+    private final ObjectMapper objectMapper;
 
     @GetMapping("/{id}")
-    public ResponseEntity<Object> getBook(@PathVariable Long id) {
+    public ResponseEntity<Object> getBook(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         try {
-            Book book = bookService.findBook(id);
-            return ResponseEntity.ok(book);
+            if (ifNoneMatch != null) {
+                String etag = ETags.strong(bookService.findBookVersion(id), salesCounter.pendingUnits(id));
+                if (ETags.matches(ifNoneMatch, etag)) {
+                    return ETags.notModified(etag);
+                }
+            }
+            // read before the sales are added so a concurrent sale can only make the tag stale
+            long pendingUnits = salesCounter.pendingUnits(id);
+            BookView book = salesCounter.applyTo(bookService.findBook(id));
+            return ResponseEntity.ok()
+                    .eTag(ETags.strong(book.getVersion(), pendingUnits))
+                    .body(book);
         } catch (BookNotFoundException ex) {
             log.warn(ex.getMessage());
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -50,17 +93,151 @@ public class BookController {
         }
     }
 
+    @GetMapping("/search")
+    public ResponseEntity<Object> searchBooks(
+            @RequestParam(name = "q") String query,
+            @RequestParam(name = "limit", defaultValue = "" + BookSearchIndex.DEFAULT_LIMIT) int limit) {
+        if (query.isBlank()) {
+            return ResponseEntity.badRequest()
+                    .body("Search query must not be blank");
+        }
+        if (limit < 1) {
+            return ResponseEntity.badRequest()
+                    .body("Limit must be greater than zero");
+        }
+        try {
+            List<BookView> books = salesCounter.applyToBooks(bookService.searchBooks(query, limit));
+            return ResponseEntity.ok(
+                    SearchResponse.<BookView>builder()
+                            .query(query)
+                            .recordCount(books.size())
+                            .response(books)
+                            .build());
+        } catch (Exception ex) {
+            String errorMsg = "Exception occurred when searching books for " + query;
+            log.warn(errorMsg, ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorMsg);
+        }
+    }
+
+    /**
+     * The best-selling books by units sold or revenue, served from the in-process
+     * ranking. Sales count once they are flushed, which keeps the order and the
+     * returned unitsSold consistent.
+     */
+    @GetMapping("/top")
+    public ResponseEntity<Object> getTopBooks(
+            @RequestParam(name = "n", defaultValue = "" + BestsellerRanking.DEFAULT_LIMIT) int n,
+            @RequestParam(name = "genre", required = false) String genreName,
+            @RequestParam(name = "by", defaultValue = "unitsSold") String orderName,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        Genre genre = Genre.fromDisplayName(genreName);
+        if (genreName != null && genre == null) {
+            return ResponseEntity.badRequest()
+                    .body("Invalid genre " + genreName);
+        }
+        RankingOrder order = RankingOrder.fromParameterName(orderName);
+        if (order == null) {
+            return ResponseEntity.badRequest()
+                    .body("Invalid ranking order " + orderName);
+        }
+        if (n < 1) {
+            return ResponseEntity.badRequest()
+                    .body("n must be greater than zero");
+        }
+        try {
+            String etag = ETags.weak(bookService.getCatalogVersion(), salesCounter.recordedSales());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.notModified(etag);
+            }
+            List<BookView> books = bookService.findTopBooks(order, genre, n);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .body(RankingResponse.<BookView>builder()
+                            .rankedBy(order.getParameterName())
+                            .genre(genreName)
+                            .recordCount(books.size())
+                            .response(books)
+                            .build());
+        } catch (Exception ex) {
+            String errorMsg = format("Exception occurred when fetching top %s books by %s", n, orderName);
+            log.warn(errorMsg, ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorMsg);
+        }
+    }
+
+    /**
+     * Streams the whole catalog as newline-delimited JSON, writing each book as
+     * soon as it is read so memory use does not depend on the catalog size.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void exportBooks(HttpServletResponse response) throws IOException {
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        OutputStream outputStream = response.getOutputStream();
+        ObjectWriter writer = objectMapper.writerFor(BookView.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .withRootValueSeparator("");
+        try (JsonGenerator generator = writer.createGenerator(outputStream)) {
+            bookService.exportBooks(book -> {
+                try {
+                    writer.writeValue(generator, salesCounter.applyTo(book));
+                    generator.writeRaw('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (Exception ex) {
+            String errorMsg = "Exception occurred when exporting books";
+            log.warn(errorMsg, ex);
+            if (!response.isCommitted()) {
+                response.reset();
+                response.sendError(HttpStatus.INTERNAL_SERVER_ERROR.value(), errorMsg);
+            }
+        }
+    }
+
     @GetMapping
     public ResponseEntity<Object> getBooks(
-            @RequestParam(name = "page") Integer pageNumber,
-            @RequestParam(name = "pageSize") Integer pageSize) {
+            @RequestParam(name = "page", required = false) Integer pageNumber,
+            @RequestParam(name = "pageSize", required = false) Integer pageSize,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", required = false) Integer limit,
+            @RequestParam(name = "genre", required = false) String genreName,
+            @RequestParam(name = "ids", required = false) List<Long> ids,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        if (ids != null) {
+            return getBooksByIds(ids);
+        }
+        Genre genre = Genre.fromDisplayName(genreName);
+        if (genreName != null && genre == null) {
+            return ResponseEntity.badRequest()
+                    .body("Invalid genre " + genreName);
+        }
+        if (after != null || limit != null) {
+            return getBooksAfter(genre, after, limit == null ? CursorPage.DEFAULT_LIMIT : limit, ifNoneMatch);
+        }
+        if (pageNumber == null || pageSize == null) {
+            return ResponseEntity.badRequest()
+                    .body("Either page and pageSize or a cursor limit must be provided");
+        }
         try {
-            Page<Book> books = bookService.findBooks(pageNumber, pageSize);
-            return ResponseEntity.ok(
-                    PaginatedResponse.<Book>builder()
+            // read before the page so a concurrent change can only make the tag stale, never the page
+            String etag = ETags.weak(bookService.getCatalogVersion(), salesCounter.recordedSales());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.notModified(etag);
+            }
+            Page<BookView> books = genre == null
+                    ? bookService.findBooks(pageNumber, pageSize)
+                    : bookService.findBooksByGenre(genre, pageNumber, pageSize);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .body(PaginatedResponse.<BookView>builder()
                             .recordCount(books.getNumberOfElements())
                             .totalRecordCount(books.getTotalElements())
-                            .response(books.getContent())
+                            .response(salesCounter.applyToBooks(books.getContent()))
                             .build());
         } catch (Exception ex) {
             String errorMsg = format("Exception occurred when fetching books for page number %s and page size %s",
@@ -92,10 +269,94 @@ public class BookController {
         }
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> saveBooks(@RequestBody List<BookDto> bookDtos) {
+        try {
+            log.debug("Saving batch of {} books", bookDtos.size());
+            BatchResponse batchResponse = bookService.saveBooks(bookDtos);
+            return ResponseEntity.ok(batchResponse);
+        } catch (Exception ex) {
+            String errorMsg = "Exception occurred when saving batch of books";
+            log.warn(errorMsg, ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorMsg);
+        }
+    }
+
+    /**
+     * Records a sale of the book. Sales are written to the database in batches,
+     * so they are accepted rather than applied; reads include them right away.
+     */
+    @PostMapping("/{id}/sales")
+    public ResponseEntity<Object> recordSale(@PathVariable Long id, @RequestBody @Valid SaleDto saleDto) {
+        try {
+            salesService.recordSale(id, saleDto.getQuantity());
+            return ResponseEntity.accepted()
+                    .build();
+        } catch (BookNotFoundException ex) {
+            log.warn(ex.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ex.getMessage());
+        } catch (Exception ex) {
+            String errorMsg = "Exception occurred when recording sale of book with id " + id;
+            log.warn(errorMsg, ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorMsg);
+        }
+    }
+
+    private ResponseEntity<Object> getBooksByIds(List<Long> ids) {
+        if (ids.size() > MultiGetResponse.MAX_IDS) {
+            return ResponseEntity.badRequest()
+                    .body(format("At most %s ids can be requested", MultiGetResponse.MAX_IDS));
+        }
+        try {
+            MultiGetResponse<BookView> books = bookService.findBooksByIds(ids);
+            books.setResponse(salesCounter.applyToBooks(books.getResponse()));
+            return ResponseEntity.ok(books);
+        } catch (Exception ex) {
+            String errorMsg = format("Exception occurred when fetching %s books by id", ids.size());
+            log.warn(errorMsg, ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorMsg);
+        }
+    }
+
+    private ResponseEntity<Object> getBooksAfter(Genre genre, String after, int limit, String ifNoneMatch) {
+        if (limit < 1) {
+            return ResponseEntity.badRequest()
+                    .body("Limit must be greater than zero");
+        }
+        try {
+            String etag = ETags.weak(bookService.getCatalogVersion(), salesCounter.recordedSales());
+            if (ETags.matches(ifNoneMatch, etag)) {
+                return ETags.notModified(etag);
+            }
+            CursorPage<BookView> books = genre == null
+                    ? bookService.findBooksAfter(after, limit)
+                    : bookService.findBooksByGenreAfter(genre, after, limit);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .body(CursorPaginatedResponse.<BookView>builder()
+                            .recordCount(books.getContent().size())
+                            .nextCursor(books.getNextCursor())
+                            .response(salesCounter.applyToBooks(books.getContent()))
+                            .build());
+        } catch (InvalidCursorException ex) {
+            log.warn(ex.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ex.getMessage());
+        } catch (Exception ex) {
+            String errorMsg = format("Exception occurred when fetching books after cursor %s with limit %s", after, limit);
+            log.warn(errorMsg, ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorMsg);
+        }
+    }
+
     @DeleteMapping("/{id}")
     public ResponseEntity<Object> deleteBook(@PathVariable Long id) {
         try {
-            bookService.findBook(id);
             bookService.deleteBook(id);
             return ResponseEntity.noContent()
                     .build();
@@ -110,4 +371,33 @@ public class BookController {
                     .body(errorMsg);
         }
     }
+
+    /**
+     * Deletes the books with the given ids, or all books of the given author,
+     * with set-based deletes. Ids that were not found are reported rather than
+     * failing the request.
+     */
+    @DeleteMapping
+    public ResponseEntity<Object> deleteBooks(@RequestParam(name = "ids", required = false) List<Long> ids,
+                                              @RequestParam(name = "authorId", required = false) Long authorId) {
+        if ((ids == null) == (authorId == null)) {
+            return ResponseEntity.badRequest()
+                    .body("Either ids or authorId must be given");
+        }
+        try {
+            BulkDeleteResponse bulkDeleteResponse = authorId == null
+                    ? bookService.deleteBooks(ids)
+                    : bookService.deleteBooksByAuthor(authorId);
+            return ResponseEntity.ok(bulkDeleteResponse);
+        } catch (AuthorNotFoundException ex) {
+            log.warn(ex.getMessage());
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ex.getMessage());
+        } catch (Exception ex) {
+            String errorMsg = "Exception occurred when deleting books";
+            log.warn(errorMsg, ex);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(errorMsg);
+        }
+    }
 }
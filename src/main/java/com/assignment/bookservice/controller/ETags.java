@@ -0,0 +1,66 @@
+package com.assignment.bookservice.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * ETags.java
+ *
+ * Building entity tags and evaluating If-None-Match request headers, so a
+ * conditional GET can be answered with 304 Not Modified before the resource
+ * is loaded and serialized.
+ *
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /**
+     * Strong tag of a single entity, derived from its version column and the
+     * units of its sales not yet flushed, which reads add to the stored entity.
+     * A flush increments the version, and until then the pending units only
+     * grow, so the tag changes whenever the body does.
+     */
+    static String strong(Long version, long pendingUnits) {
+        if (version == null) {
+            return null;
+        }
+        return pendingUnits == 0 ? "\"" + version + "\"" : "\"" + version + "-" + pendingUnits + "\"";
+    }
+
+    /**
+     * Weak tag of a listing, derived from the catalog change counter and the
+     * number of sales recorded, as listings add the sales not yet flushed.
+     */
+    static String weak(String catalogVersion, long recordedSales) {
+        return recordedSales == 0 ? "W/\"" + catalogVersion + "\"" : "W/\"" + catalogVersion + "-" + recordedSales + "\"";
+    }
+
+    /**
+     * Weak comparison of If-None-Match against the current tag, as required for GET.
+     */
+    static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || stripWeakPrefix(tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static ResponseEntity<Object> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .build();
+    }
+
+    private static String stripWeakPrefix(String tag) {
+        return tag.startsWith("W/") ? tag.substring(2) : tag;
+    }
+}
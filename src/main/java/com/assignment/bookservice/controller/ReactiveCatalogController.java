@@ -0,0 +1,139 @@
+package com.assignment.bookservice.controller;
+
+import com.assignment.bookservice.configuration.ReactiveConfiguration;
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Genre;
+import com.assignment.bookservice.exception.BookNotFoundException;
+import com.assignment.bookservice.exception.InvalidCursorException;
+import com.assignment.bookservice.pagination.CursorPage;
+import com.assignment.bookservice.response.CursorPaginatedResponse;
+import com.assignment.bookservice.sales.SalesCounter;
+import com.assignment.bookservice.service.ReactiveCatalogService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import static java.lang.String.format;
+
+/**
+ * ReactiveCatalogController.java
+ *
+ * RestController handling the non-blocking Rest API Calls (GET) for Book
+ * and Author resources. The servlet thread is released while the database
+ * is read, and streamed books are written as the client consumes them.
+ *
+ */
+@Slf4j
+@RestController
+@AllArgsConstructor
+@RequestMapping("/reactive")
+@ConditionalOnProperty(name = ReactiveConfiguration.ENABLED_PROPERTY, havingValue = "true")
+public class ReactiveCatalogController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ReactiveCatalogService reactiveCatalogService;
+    private final SalesCounter salesCounter;
+
+    @GetMapping("/books/{id}")
+    public Mono<ResponseEntity<Object>> getBook(@PathVariable Long id) {
+        return reactiveCatalogService.findBook(id)
+                .map(book -> ResponseEntity.ok().<Object>body(salesCounter.applyTo(book)))
+                .onErrorResume(BookNotFoundException.class, ex -> {
+                    log.warn(ex.getMessage());
+                    return Mono.just(ResponseEntity.status(HttpStatus.NOT_FOUND)
+                            .body(ex.getMessage()));
+                })
+                .onErrorResume(ex -> internalServerError("Exception occurred when fetching book with id " + id, ex));
+    }
+
+    @GetMapping("/books")
+    public Mono<ResponseEntity<Object>> getBooks(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+            @RequestParam(name = "genre", required = false) String genreName) {
+        Genre genre = Genre.fromDisplayName(genreName);
+        if (genreName != null && genre == null) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body("Invalid genre " + genreName));
+        }
+        if (limit < 1) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body("Limit must be greater than zero"));
+        }
+        try {
+            return reactiveCatalogService.findBooksAfter(genre, after, limit)
+                    .map(books -> ResponseEntity.ok().<Object>body(
+                            CursorPaginatedResponse.<BookView>builder()
+                                    .recordCount(books.getContent().size())
+                                    .nextCursor(books.getNextCursor())
+                                    .response(salesCounter.applyToBooks(books.getContent()))
+                                    .build()))
+                    .onErrorResume(ex -> internalServerError(
+                            format("Exception occurred when fetching books after cursor %s with limit %s", after, limit), ex));
+        } catch (InvalidCursorException ex) {
+            log.warn(ex.getMessage());
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(ex.getMessage()));
+        }
+    }
+
+    /**
+     * Streams every book after the cursor as newline-delimited JSON, reading the
+     * next page from the database only as fast as the client consumes the stream.
+     */
+    @GetMapping(value = "/books/stream", produces = NDJSON)
+    public ResponseEntity<Flux<BookView>> streamBooks(@RequestParam(name = "after", required = false) String after) {
+        try {
+            return ResponseEntity.ok(reactiveCatalogService.streamBooks(after)
+                    .map(salesCounter::applyTo)
+                    .doOnError(ex -> log.warn("Exception occurred when streaming books after cursor " + after, ex)));
+        } catch (InvalidCursorException ex) {
+            log.warn(ex.getMessage());
+            return ResponseEntity.badRequest()
+                    .build();
+        }
+    }
+
+    @GetMapping("/authors")
+    public Mono<ResponseEntity<Object>> getAuthors(
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "limit", defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit,
+            @RequestParam(name = "includeBooks", defaultValue = "true") boolean includeBooks) {
+        if (limit < 1) {
+            return Mono.just(ResponseEntity.badRequest()
+                    .body("Limit must be greater than zero"));
+        }
+        try {
+            return reactiveCatalogService.findAuthorsAfter(after, limit, includeBooks)
+                    .map(authors -> ResponseEntity.ok().<Object>body(
+                            CursorPaginatedResponse.<AuthorResponseDto>builder()
+                                    .recordCount(authors.getContent().size())
+                                    .nextCursor(authors.getNextCursor())
+                                    .response(salesCounter.applyToAuthors(authors.getContent()))
+                                    .build()))
+                    .onErrorResume(ex -> internalServerError(
+                            format("Exception occurred when getting authors after cursor %s with limit %s", after, limit), ex));
+        } catch (InvalidCursorException ex) {
+            log.warn(ex.getMessage());
+            return Mono.just(ResponseEntity.badRequest()
+                    .body(ex.getMessage()));
+        }
+    }
+
+    private static Mono<ResponseEntity<Object>> internalServerError(String errorMsg, Throwable ex) {
+        log.warn(errorMsg, ex);
+        return Mono.just(ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                .body(errorMsg));
+    }
+}
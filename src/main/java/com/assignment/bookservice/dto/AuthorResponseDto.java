@@ -1,8 +1,9 @@
 package com.assignment.bookservice.dto;
 
-import com.assignment.bookservice.entity.Book;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Builder;
-import lombok.Data;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
 import java.math.BigDecimal;
 import java.util.List;
@@ -10,16 +11,22 @@ import java.util.List;
 /**
  * AuthorResponseDTO.java
  *
- * Data Transfer Object handling response of Author resource
+ * Immutable Data Transfer Object handling response of Author resource
  *
  */
-@Data
-@Builder
+@Value
+@Builder(toBuilder = true)
+@Jacksonized
 public class AuthorResponseDto {
 
-    private Long id;
-    private String firstName;
-    private String lastName;
-    private List<Book> books;
-    private BigDecimal totalBookWorth;
+    Long id;
+    String firstName;
+    String lastName;
+    List<BookView> books;
+    long bookCount;
+    long totalUnitsSold;
+    BigDecimal totalBookWorth;
+
+    @JsonIgnore
+    Long version;
 }
@@ -0,0 +1,44 @@
+package com.assignment.bookservice.dto;
+
+import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Value;
+import lombok.With;
+import lombok.extern.jackson.Jacksonized;
+
+import java.math.BigDecimal;
+
+/**
+ * BookView.java
+ *
+ * Immutable read model of a Book. Read endpoints select it column by column
+ * with a constructor projection, so no entity is loaded into the persistence
+ * context or serialized, and it can be shared safely through the cache.
+ *
+ */
+@Value
+@Builder
+@Jacksonized
+@AllArgsConstructor
+public class BookView {
+
+    Long id;
+    String title;
+    String description;
+    BigDecimal price;
+    @With
+    int unitsSold;
+    Genre genre;
+    Long authorId;
+
+    @JsonIgnore
+    Long version;
+
+    public static BookView of(Book book) {
+        return new BookView(book.getId(), book.getTitle(), book.getDescription(), book.getPrice(),
+                book.getUnitsSold(), book.getGenre(), book.getAuthorId(), book.getVersion());
+    }
+}
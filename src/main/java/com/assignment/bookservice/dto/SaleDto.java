@@ -0,0 +1,28 @@
+package com.assignment.bookservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * SaleDTO.java
+ *
+ * Sale of a Book Data Transfer Object
+ *
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SaleDto {
+
+    @NotNull(message = "Quantity cannot be null")
+    @Min(1)
+    @Max(10000)
+    private Integer quantity;
+}
@@ -1,5 +1,6 @@
 package com.assignment.bookservice.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -17,11 +18,21 @@ import java.util.List;
 public class Author {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "author_seq")
+    @SequenceGenerator(name = "author_seq", sequenceName = "author_seq", allocationSize = 50)
     private Long id;
     private String firstName;
     private String lastName;
 
-    @OneToMany(mappedBy = "authorId")
+    @OneToMany
+    @JoinColumn(name = "author_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(name = Book.AUTHOR_FOREIGN_KEY))
     private List<Book> books;
+
+    /**
+     * Also incremented when the author's books or stats change.
+     */
+    @Version
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,41 @@
+package com.assignment.bookservice.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.math.BigDecimal;
+
+/**
+ * AuthorStats.java
+ *
+ * Precomputed per-author book statistics. Kept up to date with delta updates
+ * in the same transaction as every change to the author's books, so reading
+ * them is a primary key lookup instead of an aggregate over the book table.
+ *
+ */
+@Data
+@Entity
+@Builder
+@Table(name = "author_stats")
+@AllArgsConstructor
+@NoArgsConstructor
+public class AuthorStats {
+
+    @Id
+    private Long authorId;
+    private long bookCount;
+    private long totalUnitsSold;
+    private BigDecimal totalBookWorth;
+
+    public static AuthorStats empty(Long authorId) {
+        return AuthorStats.builder()
+                .authorId(authorId)
+                .totalBookWorth(BigDecimal.ZERO)
+                .build();
+    }
+}
@@ -1,5 +1,6 @@
 package com.assignment.bookservice.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.*;
 
 import javax.persistence.*;
@@ -10,17 +11,31 @@ import java.math.BigDecimal;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "book")
+@Table(name = "book",
+        uniqueConstraints = @UniqueConstraint(name = Book.TITLE_AUTHOR_UNIQUE_CONSTRAINT, columnNames = {"title", "author_id"}),
+        indexes = {
+                @Index(name = "idx_book_author_id", columnList = "author_id"),
+                @Index(name = "idx_book_genre_id", columnList = "genre, id")
+        })
 @EqualsAndHashCode
 public class Book {
 
+    public static final String TITLE_AUTHOR_UNIQUE_CONSTRAINT = "uk_book_title_author_id";
+    public static final String AUTHOR_FOREIGN_KEY = "fk_book_author_id";
+
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "book_seq")
+    @SequenceGenerator(name = "book_seq", sequenceName = "book_seq", allocationSize = 50)
     private Long id;
     private String title;
     private String description;
     private BigDecimal price;
     private int unitsSold;
-    private String genre;
+    private Genre genre;
+    @Column(name = "author_id")
     private Long authorId;
+
+    @Version
+    @JsonIgnore
+    private Long version;
 }
@@ -0,0 +1,68 @@
+package com.assignment.bookservice.entity;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Genre.java
+ *
+ * Supported book genres. A genre is exposed by its display name and stored as
+ * a small integer code (see GenreConverter); codes must never be reused or
+ * changed once books have been stored with them.
+ *
+ */
+public enum Genre {
+
+    FANTASY(1, "Fantasy"),
+    SCIENCE_FICTION(2, "Science Fiction"),
+    ROMANCE(3, "Romance"),
+    THRILLER(4, "Thriller"),
+    MYSTERY(5, "Mystery"),
+    HORROR(6, "Horror"),
+    AUTOBIOGRAPHY(7, "Autobiography");
+
+    private static final Map<String, Genre> BY_DISPLAY_NAME = new HashMap<>();
+    private static final Genre[] BY_CODE = new Genre[values().length + 1];
+
+    static {
+        for (Genre genre : values()) {
+            BY_DISPLAY_NAME.put(genre.displayName, genre);
+            BY_CODE[genre.code] = genre;
+        }
+    }
+
+    private final short code;
+    private final String displayName;
+
+    Genre(int code, String displayName) {
+        this.code = (short) code;
+        this.displayName = displayName;
+    }
+
+    public short getCode() {
+        return code;
+    }
+
+    @JsonValue
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * Returns the genre with the given display name, or null if there is none.
+     */
+    @JsonCreator
+    public static Genre fromDisplayName(String displayName) {
+        return displayName == null ? null : BY_DISPLAY_NAME.get(displayName);
+    }
+
+    public static Genre fromCode(short code) {
+        if (code < 1 || code >= BY_CODE.length) {
+            throw new IllegalArgumentException("Unknown genre code " + code);
+        }
+        return BY_CODE[code];
+    }
+}
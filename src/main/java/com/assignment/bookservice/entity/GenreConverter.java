@@ -0,0 +1,24 @@
+package com.assignment.bookservice.entity;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * GenreConverter.java
+ *
+ * Stores a Genre as its two-byte code instead of its name.
+ *
+ */
+@Converter(autoApply = true)
+public class GenreConverter implements AttributeConverter<Genre, Short> {
+
+    @Override
+    public Short convertToDatabaseColumn(Genre genre) {
+        return genre == null ? null : genre.getCode();
+    }
+
+    @Override
+    public Genre convertToEntityAttribute(Short code) {
+        return code == null ? null : Genre.fromCode(code);
+    }
+}
@@ -0,0 +1,8 @@
+package com.assignment.bookservice.exception;
+
+public class AuthorHasBooksException extends RuntimeException {
+
+    public AuthorHasBooksException(String errorMessage) {
+        super(errorMessage);
+    }
+}
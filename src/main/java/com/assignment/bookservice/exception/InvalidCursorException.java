@@ -0,0 +1,8 @@
+package com.assignment.bookservice.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(String errorMessage) {
+        super(errorMessage);
+    }
+}
@@ -0,0 +1,38 @@
+package com.assignment.bookservice.job;
+
+import com.assignment.bookservice.service.AuthorService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * AuthorStatsConsistencyJob.java
+ *
+ * Periodically compares the precomputed author stats with an aggregate over
+ * the book table and rebuilds them if any author has drifted, e.g. after books
+ * were changed outside of the service.
+ *
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+public class AuthorStatsConsistencyJob {
+
+    private final AuthorService authorService;
+
+    @Scheduled(cron = "${book-service.author-stats.consistency-check-cron}")
+    public void checkAuthorStats() {
+        List<Long> inconsistentAuthorIds = authorService.findAuthorsWithInconsistentStats();
+        if (inconsistentAuthorIds.isEmpty()) {
+            log.debug("Author stats are consistent");
+            return;
+        }
+        log.warn("Stats of {} authors are inconsistent, e.g. author ids {}; rebuilding",
+                inconsistentAuthorIds.size(), inconsistentAuthorIds.subList(0, Math.min(10, inconsistentAuthorIds.size())));
+        int rebuilt = authorService.rebuildAuthorStats();
+        log.info("Rebuilt stats of {} authors", rebuilt);
+    }
+}
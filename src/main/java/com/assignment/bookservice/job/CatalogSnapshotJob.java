@@ -0,0 +1,46 @@
+package com.assignment.bookservice.job;
+
+import com.assignment.bookservice.service.CatalogSnapshotService;
+import com.assignment.bookservice.service.SalesService;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+
+/**
+ * CatalogSnapshotJob.java
+ *
+ * Periodically writes the catalog to the snapshot file, and once more when the
+ * application shuts down after flushing the pending sales.
+ *
+ */
+@Slf4j
+@Component
+@AllArgsConstructor
+@ConditionalOnProperty(name = CatalogSnapshotService.ENABLED_PROPERTY, havingValue = "true")
+public class CatalogSnapshotJob {
+
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final SalesService salesService;
+
+    @Scheduled(fixedDelayString = "${book-service.snapshot.interval}", initialDelayString = "${book-service.snapshot.interval}")
+    public void writeSnapshot() {
+        catalogSnapshotService.writeSnapshot();
+    }
+
+    /**
+     * Runs before SalesService shuts down, as this job depends on it.
+     */
+    @PreDestroy
+    public void writeSnapshotOnShutdown() {
+        try {
+            salesService.flushSales();
+            catalogSnapshotService.writeSnapshot();
+        } catch (RuntimeException ex) {
+            log.error("Failed to write catalog snapshot on shutdown", ex);
+        }
+    }
+}
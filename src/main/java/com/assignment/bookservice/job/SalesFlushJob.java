@@ -0,0 +1,24 @@
+package com.assignment.bookservice.job;
+
+import com.assignment.bookservice.service.SalesService;
+import lombok.AllArgsConstructor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * SalesFlushJob.java
+ *
+ * Periodically writes the sales accumulated in memory to the database.
+ *
+ */
+@Component
+@AllArgsConstructor
+public class SalesFlushJob {
+
+    private final SalesService salesService;
+
+    @Scheduled(fixedDelayString = "${book-service.sales.flush-interval}")
+    public void flushSales() {
+        salesService.flushSales();
+    }
+}
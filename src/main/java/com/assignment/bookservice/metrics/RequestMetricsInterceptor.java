@@ -0,0 +1,75 @@
+package com.assignment.bookservice.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RequestMetricsInterceptor.java
+ *
+ * Records, per controller method, the request latency and the number of SQL
+ * statements and database connections each request needed. Latencies and
+ * counts are published with p50/p99 percentiles and a max, so a handler that
+ * starts issuing one query per row shows up as a jump in its statement count.
+ *
+ */
+@AllArgsConstructor
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    public static final String LATENCY_METRIC = "book.service.requests";
+    public static final String STATEMENTS_METRIC = "book.service.requests.sql.statements";
+    public static final String CONNECTIONS_METRIC = "book.service.requests.db.connections";
+
+    private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry meterRegistry;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            RequestStatistics.start();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        RequestStatistics statistics = RequestStatistics.stop();
+        if (!(handler instanceof HandlerMethod) || start == null) {
+            return;
+        }
+        HandlerMethod handlerMethod = (HandlerMethod) handler;
+        String handlerName = handlerMethod.getMethod().getDeclaringClass().getSimpleName() + "." + handlerMethod.getMethod().getName();
+
+        Timer.builder(LATENCY_METRIC)
+                .description("Latency of requests per controller method")
+                .tag("handler", handlerName)
+                .tag("status", String.valueOf(response.getStatus()))
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(System.nanoTime() - (long) start, TimeUnit.NANOSECONDS);
+        if (statistics != null) {
+            summary(STATEMENTS_METRIC, "SQL statements prepared per request", handlerName)
+                    .record(statistics.getStatementCount());
+            summary(CONNECTIONS_METRIC, "Database connections acquired per request", handlerName)
+                    .record(statistics.getConnectionCount());
+        }
+    }
+
+    private DistributionSummary summary(String name, String description, String handlerName) {
+        return DistributionSummary.builder(name)
+                .description(description)
+                .tag("handler", handlerName)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,56 @@
+package com.assignment.bookservice.metrics;
+
+/**
+ * RequestStatistics.java
+ *
+ * Per-request counters of the JDBC statements prepared and the connections
+ * acquired by the current thread. Counting only happens between
+ * {@link #start()} and {@link #stop()}, i.e. while a request is being handled.
+ *
+ */
+public final class RequestStatistics {
+
+    private static final ThreadLocal<RequestStatistics> CURRENT = new ThreadLocal<>();
+
+    private int statementCount;
+    private int connectionCount;
+
+    private RequestStatistics() {
+    }
+
+    public static void start() {
+        CURRENT.set(new RequestStatistics());
+    }
+
+    /**
+     * Stops counting for the current thread and returns the collected counters,
+     * or null when counting was not started.
+     */
+    public static RequestStatistics stop() {
+        RequestStatistics statistics = CURRENT.get();
+        CURRENT.remove();
+        return statistics;
+    }
+
+    static void statementPrepared() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.statementCount++;
+        }
+    }
+
+    static void connectionAcquired() {
+        RequestStatistics statistics = CURRENT.get();
+        if (statistics != null) {
+            statistics.connectionCount++;
+        }
+    }
+
+    public int getStatementCount() {
+        return statementCount;
+    }
+
+    public int getConnectionCount() {
+        return connectionCount;
+    }
+}
@@ -0,0 +1,48 @@
+package com.assignment.bookservice.pagination;
+
+import com.assignment.bookservice.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static java.lang.String.format;
+
+/**
+ * Cursor.java
+ *
+ * Encodes and decodes the opaque tokens used for keyset pagination.
+ * A token wraps the id of the last record of a page, so the next page
+ * can be read with an id &gt; ? seek instead of an OFFSET scan.
+ *
+ */
+public final class Cursor {
+
+    private static final String PREFIX = "id:";
+
+    private Cursor() {
+    }
+
+    public static String encode(long lastId) {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the id to seek after, or {@link Long#MIN_VALUE} when no token is given.
+     */
+    public static long decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new InvalidCursorException(format("Invalid cursor %s", token));
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException(format("Invalid cursor %s", token));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.assignment.bookservice.pagination;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * CursorPage.java
+ *
+ * A page of records read with keyset pagination, together with the
+ * cursor of the next page (null on the last page)
+ *
+ */
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 1000;
+
+    private List<T> content;
+    private String nextCursor;
+
+    /**
+     * Builds a page from a query that fetched one row more than the limit;
+     * the extra row only signals that a next page exists.
+     */
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, Long> idExtractor) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> content = rows.subList(0, limit);
+        return new CursorPage<>(content, Cursor.encode(idExtractor.apply(content.get(limit - 1))));
+    }
+}
@@ -0,0 +1,173 @@
+package com.assignment.bookservice.ranking;
+
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Genre;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * BestsellerRanking.java
+ *
+ * In-memory ranking of all books by units sold and by revenue (price times
+ * units sold), overall and per genre. Each ranking is a sorted set kept in
+ * order as books are saved, deleted and their sales flushed, so the top n
+ * books are the first n entries and are read without sorting or touching
+ * the database.
+ *
+ */
+@Component
+public class BestsellerRanking {
+
+    public static final int DEFAULT_LIMIT = 10;
+    public static final int MAX_LIMIT = 100;
+
+    private static final Comparator<Entry> BY_UNITS_SOLD = Comparator
+            .comparingInt((Entry entry) -> entry.book.getUnitsSold()).reversed()
+            .thenComparing(entry -> entry.book.getId());
+    private static final Comparator<Entry> BY_REVENUE = Comparator
+            .comparing((Entry entry) -> entry.revenue).reversed()
+            .thenComparing(entry -> entry.book.getId());
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final Map<RankingOrder, NavigableSet<Entry>> rankings = new EnumMap<>(RankingOrder.class);
+    private final Map<RankingOrder, Map<Genre, NavigableSet<Entry>>> genreRankings = new EnumMap<>(RankingOrder.class);
+
+    public BestsellerRanking() {
+        for (RankingOrder order : RankingOrder.values()) {
+            Comparator<Entry> comparator = order == RankingOrder.REVENUE ? BY_REVENUE : BY_UNITS_SOLD;
+            rankings.put(order, new TreeSet<>(comparator));
+            Map<Genre, NavigableSet<Entry>> byGenre = new EnumMap<>(Genre.class);
+            for (Genre genre : Genre.values()) {
+                byGenre.put(genre, new TreeSet<>(comparator));
+            }
+            genreRankings.put(order, byGenre);
+        }
+    }
+
+    /**
+     * Adds the book to the rankings, replacing a previously ranked version of it.
+     */
+    public void add(BookView book) {
+        lock.writeLock().lock();
+        try {
+            remove(book.getId());
+            Entry entry = new Entry(book);
+            entries.put(book.getId(), entry);
+            forEachRanking(entry, ranking -> ranking.add(entry));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAll(Collection<BookView> booksToAdd) {
+        lock.writeLock().lock();
+        try {
+            booksToAdd.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Re-ranks books that are still ranked, leaving out books deleted meanwhile.
+     */
+    public void replaceAll(Collection<BookView> booksToReplace) {
+        lock.writeLock().lock();
+        try {
+            for (BookView book : booksToReplace) {
+                if (entries.containsKey(book.getId())) {
+                    add(book);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(bookId);
+            if (previous != null) {
+                forEachRanking(previous, ranking -> ranking.remove(previous));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            entries.clear();
+            rankings.values().forEach(NavigableSet::clear);
+            genreRankings.values().forEach(byGenre -> byGenre.values().forEach(NavigableSet::clear));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * The n best-selling books in the given order, optionally of one genre only.
+     */
+    public List<BookView> top(RankingOrder order, Genre genre, int n) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Entry> ranking = genre == null ? rankings.get(order) : genreRankings.get(order).get(genre);
+            List<BookView> books = new ArrayList<>(Math.min(n, ranking.size()));
+            for (Entry entry : ranking) {
+                if (books.size() == n) {
+                    break;
+                }
+                books.add(entry.book);
+            }
+            return books;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void forEachRanking(Entry entry, Consumer<NavigableSet<Entry>> action) {
+        for (RankingOrder order : RankingOrder.values()) {
+            action.accept(rankings.get(order));
+            if (entry.book.getGenre() != null) {
+                action.accept(genreRankings.get(order).get(entry.book.getGenre()));
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final BookView book;
+        private final BigDecimal revenue;
+
+        private Entry(BookView book) {
+            this.book = book;
+            this.revenue = book.getPrice() == null ? BigDecimal.ZERO
+                    : book.getPrice().multiply(BigDecimal.valueOf(book.getUnitsSold()));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.assignment.bookservice.ranking;
+
+import com.assignment.bookservice.service.BookService;
+import com.assignment.bookservice.snapshot.CatalogSnapshotInitializer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * BestsellerRankingInitializer.java
+ *
+ * Rebuilds the bestseller ranking from the database on startup, after a
+ * snapshot restore and before the web server accepts requests. Afterwards the
+ * ranking is kept up to date by BookService and SalesService.
+ *
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BestsellerRankingInitializer implements SmartLifecycle {
+
+    private final BookService bookService;
+    private final BestsellerRanking bestsellerRanking;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        bestsellerRanking.clear();
+        bookService.exportBooks(bestsellerRanking::add);
+        log.info("Ranked {} books", bestsellerRanking.size());
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return CatalogSnapshotInitializer.PHASE + 1;
+    }
+}
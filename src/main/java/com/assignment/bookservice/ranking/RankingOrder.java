@@ -0,0 +1,35 @@
+package com.assignment.bookservice.ranking;
+
+/**
+ * RankingOrder.java
+ *
+ * What bestsellers are ranked by, exposed by its parameter name.
+ *
+ */
+public enum RankingOrder {
+
+    UNITS_SOLD("unitsSold"),
+    REVENUE("revenue");
+
+    private final String parameterName;
+
+    RankingOrder(String parameterName) {
+        this.parameterName = parameterName;
+    }
+
+    public String getParameterName() {
+        return parameterName;
+    }
+
+    /**
+     * Returns the order with the given parameter name, or null if there is none.
+     */
+    public static RankingOrder fromParameterName(String parameterName) {
+        for (RankingOrder order : values()) {
+            if (order.parameterName.equals(parameterName)) {
+                return order;
+            }
+        }
+        return null;
+    }
+}
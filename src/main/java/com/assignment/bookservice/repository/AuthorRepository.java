@@ -1,10 +1,50 @@
 package com.assignment.bookservice.repository;
 
 import com.assignment.bookservice.entity.Author;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 @Repository
 public interface AuthorRepository extends JpaRepository<Author, Long> {
 
+    /**
+     * Keyset seek used by cursor pagination; unlike a Page query it never runs a count.
+     */
+    List<Author> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    @Query("select a.id from Author a where a.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Version-only lookup answering conditional GETs without loading the author.
+     */
+    @Query("select a.version from Author a where a.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    /**
+     * Marks the authors as changed when their books change, as JPA does for
+     * changes to a collection owned by a versioned entity.
+     */
+    @Modifying
+    @Query("update Author a set a.version = a.version + 1 where a.id in :ids")
+    int incrementVersions(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("update Author a set a.version = a.version + 1")
+    int incrementAllVersions();
+
+    /**
+     * Deletes the author without loading it. Returns the number of deleted rows.
+     */
+    @Modifying
+    @Query("delete from Author a where a.id = :id")
+    int deleteAuthorById(@Param("id") Long id);
 }
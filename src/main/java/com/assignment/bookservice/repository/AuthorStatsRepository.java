@@ -0,0 +1,64 @@
+package com.assignment.bookservice.repository;
+
+import com.assignment.bookservice.entity.AuthorStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public interface AuthorStatsRepository extends JpaRepository<AuthorStats, Long> {
+
+    /**
+     * Applies a delta in place, so concurrent book changes of the same author
+     * never overwrite each other's counts. Returns the number of updated rows.
+     */
+    @Modifying
+    @Query("update AuthorStats s set s.bookCount = s.bookCount + :bookCount, " +
+            "s.totalUnitsSold = s.totalUnitsSold + :unitsSold, " +
+            "s.totalBookWorth = s.totalBookWorth + :bookWorth " +
+            "where s.authorId = :authorId")
+    int addToStats(@Param("authorId") Long authorId, @Param("bookCount") long bookCount,
+                   @Param("unitsSold") long unitsSold, @Param("bookWorth") BigDecimal bookWorth);
+
+    /**
+     * Ids of the authors whose stats are missing or differ from the aggregate
+     * over their books.
+     */
+    @Query("select a.id from Author a left join a.books b left join AuthorStats s on s.authorId = a.id " +
+            "group by a.id, s.authorId, s.bookCount, s.totalUnitsSold, s.totalBookWorth " +
+            "having s.authorId is null or s.bookCount <> count(b) " +
+            "or s.totalUnitsSold <> coalesce(sum(b.unitsSold), 0) " +
+            "or s.totalBookWorth <> coalesce(sum(b.price * b.unitsSold), 0)")
+    List<Long> findInconsistentAuthorIds();
+
+    @Modifying
+    @Query("delete from AuthorStats s where s.authorId = :authorId")
+    int deleteStatsByAuthorId(@Param("authorId") Long authorId);
+
+    @Modifying
+    @Query("delete from AuthorStats s where s.authorId not in (select a.id from Author a)")
+    int deleteOrphanedStats();
+
+    /**
+     * Recomputes the stats of every author from the book table in place,
+     * inserting the rows that are missing. Rows are never deleted, so a
+     * concurrent delta always finds the row of its author.
+     */
+    @Modifying
+    @Query(value = "merge into author_stats s using (" +
+            "select a.id author_id, count(b.id) book_count, coalesce(sum(b.units_sold), 0) total_units_sold, " +
+            "coalesce(sum(b.price * b.units_sold), 0) total_book_worth " +
+            "from author a left join book b on b.author_id = a.id group by a.id) d " +
+            "on s.author_id = d.author_id " +
+            "when matched then update set book_count = d.book_count, total_units_sold = d.total_units_sold, " +
+            "total_book_worth = d.total_book_worth " +
+            "when not matched then insert (author_id, book_count, total_units_sold, total_book_worth) " +
+            "values (d.author_id, d.book_count, d.total_units_sold, d.total_book_worth)",
+            nativeQuery = true)
+    int mergeStatsFromBooks();
+}
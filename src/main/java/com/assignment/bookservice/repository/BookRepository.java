@@ -1,13 +1,103 @@
 package com.assignment.bookservice.repository;
 
+import com.assignment.bookservice.dto.BookView;
 import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
-    Optional<Book> findByTitleAndAuthorId(String title, Long authorId);
+    /**
+     * Constructor projection selecting only the columns of a BookView.
+     */
+    String BOOK_VIEW = "select new com.assignment.bookservice.dto.BookView("
+            + "b.id, b.title, b.description, b.price, b.unitsSold, b.genre, b.authorId, b.version)";
+
+    /**
+     * Version-only lookup answering conditional GETs without loading the book.
+     */
+    @Query("select b.version from Book b where b.id = :id")
+    Optional<Long> findVersionById(@Param("id") Long id);
+
+    @Query(BOOK_VIEW + " from Book b where b.id = :id")
+    Optional<BookView> findViewById(@Param("id") Long id);
+
+    @Query(value = BOOK_VIEW + " from Book b", countQuery = "select count(b) from Book b")
+    Page<BookView> findAllViews(Pageable pageable);
+
+    /**
+     * Keyset seek used by cursor pagination; unlike a Page query it never runs a count.
+     */
+    @Query(BOOK_VIEW + " from Book b where b.id > :id order by b.id")
+    List<BookView> findViewsAfter(@Param("id") Long id, Pageable pageable);
+
+    /**
+     * Genre filters are served by the (genre, id) index.
+     */
+    @Query(value = BOOK_VIEW + " from Book b where b.genre = :genre",
+            countQuery = "select count(b) from Book b where b.genre = :genre")
+    Page<BookView> findViewsByGenre(@Param("genre") Genre genre, Pageable pageable);
+
+    @Query(BOOK_VIEW + " from Book b where b.genre = :genre and b.id > :id order by b.id")
+    List<BookView> findViewsByGenreAfter(@Param("genre") Genre genre, @Param("id") Long id, Pageable pageable);
+
+    @Query(BOOK_VIEW + " from Book b where b.id in :ids order by b.id")
+    List<BookView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Reads the books about to be deleted and locks their rows, so the stats
+     * removed from their authors match what is deleted.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(BOOK_VIEW + " from Book b where b.id in :ids")
+    List<BookView> lockViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Existence check served by the author_id index; stops at the first book.
+     */
+    boolean existsByAuthorId(Long authorId);
+
+    @Query("select b.id from Book b where b.authorId = :authorId order by b.id")
+    List<Long> findIdsByAuthorId(@Param("authorId") Long authorId);
+
+    /**
+     * Set-based delete in one statement; the persistence context is not updated.
+     */
+    @Modifying
+    @Query("delete from Book b where b.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Books of the given authors, served by the author_id index.
+     */
+    @Query(BOOK_VIEW + " from Book b where b.authorId in :authorIds order by b.id")
+    List<BookView> findViewsByAuthorIdIn(@Param("authorIds") Collection<Long> authorIds);
+
+    /**
+     * Forward-only stream over the whole catalog. Must be consumed inside a
+     * transaction and closed afterwards; nothing is added to the persistence context.
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query(BOOK_VIEW + " from Book b order by b.id")
+    Stream<BookView> streamAllViews();
+
+    List<Book> findByAuthorIdInAndTitleIn(Collection<Long> authorIds, Collection<String> titles);
 }
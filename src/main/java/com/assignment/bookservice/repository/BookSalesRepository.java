@@ -0,0 +1,35 @@
+package com.assignment.bookservice.repository;
+
+import com.assignment.bookservice.sales.SalesDelta;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * BookSalesRepository.java
+ *
+ * Writes accumulated sales to the book table with a single JDBC batch of
+ * in-place increments, so a flush costs one round trip however many books it
+ * covers and never overwrites a concurrent change of units_sold.
+ *
+ */
+@Repository
+@AllArgsConstructor
+public class BookSalesRepository {
+
+    private static final String ADD_UNITS_SOLD = "update book set units_sold = units_sold + ?, version = version + 1 where id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Returns the number of updated rows per delta; 0 for a book that was deleted.
+     */
+    public int[] addUnitsSold(List<SalesDelta> deltas) {
+        return jdbcTemplate.batchUpdate(ADD_UNITS_SOLD, deltas.stream()
+                .map(delta -> new Object[]{delta.getUnits(), delta.getBookId()})
+                .collect(Collectors.toList()));
+    }
+}
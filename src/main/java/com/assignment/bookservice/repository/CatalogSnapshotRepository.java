@@ -0,0 +1,118 @@
+package com.assignment.bookservice.repository;
+
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
+import lombok.AllArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Types;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CatalogSnapshotRepository.java
+ *
+ * Reads and writes the author and book tables row by row with plain JDBC for
+ * catalog snapshots, bypassing the persistence context so neither a snapshot
+ * nor a restore of a large catalog keeps its entities in memory.
+ *
+ */
+@Repository
+@AllArgsConstructor
+public class CatalogSnapshotRepository {
+
+    // matches the allocationSize of the entity id generators
+    private static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String SELECT_AUTHORS = "select id, version, first_name, last_name from author order by id";
+    private static final String SELECT_BOOKS = "select id, version, author_id, units_sold, genre, price, title, description from book order by id";
+    private static final String INSERT_AUTHOR = "insert into author (id, version, first_name, last_name) values (?, ?, ?, ?)";
+    private static final String INSERT_BOOK = "insert into book (id, version, author_id, units_sold, genre, price, title, description) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public boolean isCatalogEmpty() {
+        return !Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "select exists(select 1 from author) or exists(select 1 from book)", Boolean.class));
+    }
+
+    public void forEachAuthor(Consumer<Author> consumer) {
+        jdbcTemplate.query(SELECT_AUTHORS, (RowCallbackHandler) rs -> consumer.accept(Author.builder()
+                .id(rs.getLong("id"))
+                .version(rs.getLong("version"))
+                .firstName(rs.getString("first_name"))
+                .lastName(rs.getString("last_name"))
+                .build()));
+    }
+
+    public void forEachBook(Consumer<Book> consumer) {
+        jdbcTemplate.query(SELECT_BOOKS, (RowCallbackHandler) rs -> {
+            short genreCode = rs.getShort("genre");
+            Genre genre = rs.wasNull() ? null : Genre.fromCode(genreCode);
+            consumer.accept(Book.builder()
+                    .id(rs.getLong("id"))
+                    .version(rs.getLong("version"))
+                    .authorId(rs.getLong("author_id"))
+                    .unitsSold(rs.getInt("units_sold"))
+                    .genre(genre)
+                    .price(rs.getBigDecimal("price"))
+                    .title(rs.getString("title"))
+                    .description(rs.getString("description"))
+                    .build());
+        });
+    }
+
+    public void insertAuthors(List<Author> authors) {
+        jdbcTemplate.batchUpdate(INSERT_AUTHOR, authors, authors.size(), (ps, author) -> {
+            ps.setLong(1, author.getId());
+            ps.setLong(2, author.getVersion());
+            ps.setString(3, author.getFirstName());
+            ps.setString(4, author.getLastName());
+        });
+    }
+
+    public void insertBooks(List<Book> books) {
+        jdbcTemplate.batchUpdate(INSERT_BOOK, books, books.size(), (ps, book) -> {
+            ps.setLong(1, book.getId());
+            ps.setLong(2, book.getVersion());
+            ps.setLong(3, book.getAuthorId());
+            ps.setInt(4, book.getUnitsSold());
+            if (book.getGenre() == null) {
+                ps.setNull(5, Types.SMALLINT);
+            } else {
+                ps.setShort(5, book.getGenre().getCode());
+            }
+            ps.setBigDecimal(6, book.getPrice());
+            ps.setString(7, book.getTitle());
+            ps.setString(8, book.getDescription());
+        });
+    }
+
+    /**
+     * Removes all authors, books and author stats.
+     */
+    public void deleteCatalog() {
+        jdbcTemplate.execute("truncate table author_stats");
+        jdbcTemplate.execute("truncate table book");
+        jdbcTemplate.execute("delete from author");
+    }
+
+    /**
+     * Moves the id sequences past the highest restored ids. Each value handed
+     * out by a sequence is the top of a block of ids, so the sequences restart
+     * a whole block above the highest id.
+     */
+    public void restartIdSequences() {
+        restartSequence("author_seq", "author");
+        restartSequence("book_seq", "book");
+    }
+
+    private void restartSequence(String sequenceName, String tableName) {
+        Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + tableName, Long.class);
+        jdbcTemplate.execute("alter sequence " + sequenceName + " restart with " + (maxId + ID_ALLOCATION_SIZE + 1));
+    }
+}
@@ -0,0 +1,110 @@
+package com.assignment.bookservice.repository;
+
+import com.assignment.bookservice.configuration.ReactiveConfiguration;
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Genre;
+import io.r2dbc.spi.Row;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+
+/**
+ * ReactiveCatalogRepository.java
+ *
+ * Non-blocking reads of books and authors through the R2DBC DatabaseClient,
+ * selecting the same columns as the JPA projections.
+ *
+ */
+@Repository
+@AllArgsConstructor
+@ConditionalOnProperty(name = ReactiveConfiguration.ENABLED_PROPERTY, havingValue = "true")
+public class ReactiveCatalogRepository {
+
+    private static final String SELECT_BOOK = "select id, title, description, price, units_sold, genre, author_id, version from book";
+    private static final String SELECT_AUTHOR = "select a.id, a.first_name, a.last_name, a.version,"
+            + " s.book_count, s.total_units_sold, s.total_book_worth"
+            + " from author a left join author_stats s on s.author_id = a.id";
+
+    private final DatabaseClient databaseClient;
+
+    public Mono<BookView> findBookById(long id) {
+        return databaseClient.sql(SELECT_BOOK + " where id = :id")
+                .bind("id", id)
+                .map((row, metadata) -> toBookView(row))
+                .one();
+    }
+
+    /**
+     * Keyset seek on the primary key, like the cursor pagination of the servlet path.
+     */
+    public Flux<BookView> findBooksAfter(long afterId, int limit) {
+        return databaseClient.sql(SELECT_BOOK + " where id > :after order by id limit :limit")
+                .bind("after", afterId)
+                .bind("limit", limit)
+                .map((row, metadata) -> toBookView(row))
+                .all();
+    }
+
+    public Flux<BookView> findBooksByGenreAfter(Genre genre, long afterId, int limit) {
+        return databaseClient.sql(SELECT_BOOK + " where genre = :genre and id > :after order by id limit :limit")
+                .bind("genre", genre.getCode())
+                .bind("after", afterId)
+                .bind("limit", limit)
+                .map((row, metadata) -> toBookView(row))
+                .all();
+    }
+
+    public Flux<BookView> findBooksByAuthorIds(Collection<Long> authorIds) {
+        return databaseClient.sql(SELECT_BOOK + " where author_id in (:authorIds) order by id")
+                .bind("authorIds", authorIds)
+                .map((row, metadata) -> toBookView(row))
+                .all();
+    }
+
+    /**
+     * Authors with their precomputed stats, without their books.
+     */
+    public Flux<AuthorResponseDto> findAuthorsAfter(long afterId, int limit) {
+        return databaseClient.sql(SELECT_AUTHOR + " where a.id > :after order by a.id limit :limit")
+                .bind("after", afterId)
+                .bind("limit", limit)
+                .map((row, metadata) -> toAuthor(row))
+                .all();
+    }
+
+    private static BookView toBookView(Row row) {
+        Short genre = row.get("genre", Short.class);
+        return BookView.builder()
+                .id(row.get("id", Long.class))
+                .title(row.get("title", String.class))
+                .description(row.get("description", String.class))
+                .price(row.get("price", BigDecimal.class))
+                .unitsSold(row.get("units_sold", Integer.class))
+                .genre(genre == null ? null : Genre.fromCode(genre))
+                .authorId(row.get("author_id", Long.class))
+                .version(row.get("version", Long.class))
+                .build();
+    }
+
+    private static AuthorResponseDto toAuthor(Row row) {
+        Long bookCount = row.get("book_count", Long.class);
+        Long totalUnitsSold = row.get("total_units_sold", Long.class);
+        BigDecimal totalBookWorth = row.get("total_book_worth", BigDecimal.class);
+        return AuthorResponseDto.builder()
+                .id(row.get("id", Long.class))
+                .firstName(row.get("first_name", String.class))
+                .lastName(row.get("last_name", String.class))
+                .bookCount(bookCount == null ? 0 : bookCount)
+                .totalUnitsSold(totalUnitsSold == null ? 0 : totalUnitsSold)
+                .totalBookWorth(totalBookWorth == null ? BigDecimal.ZERO : totalBookWorth)
+                .version(row.get("version", Long.class))
+                .build();
+    }
+}
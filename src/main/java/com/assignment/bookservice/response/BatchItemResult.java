@@ -0,0 +1,18 @@
+package com.assignment.bookservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult {
+
+    private int index;
+    private BatchItemStatus status;
+    private Long id;
+    private String message;
+}
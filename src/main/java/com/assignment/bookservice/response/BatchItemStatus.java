@@ -0,0 +1,8 @@
+package com.assignment.bookservice.response;
+
+public enum BatchItemStatus {
+    CREATED,
+    INVALID,
+    DUPLICATE,
+    AUTHOR_NOT_FOUND
+}
@@ -0,0 +1,19 @@
+package com.assignment.bookservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponse {
+
+    private int createdCount;
+    private int failedCount;
+    private List<BatchItemResult> results;
+}
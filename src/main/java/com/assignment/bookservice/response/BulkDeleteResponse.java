@@ -0,0 +1,18 @@
+package com.assignment.bookservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkDeleteResponse {
+
+    private int deletedCount;
+    private List<Long> missingIds;
+}
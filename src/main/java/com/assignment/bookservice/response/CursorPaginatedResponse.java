@@ -0,0 +1,19 @@
+package com.assignment.bookservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPaginatedResponse<T> {
+
+    private int recordCount;
+    private String nextCursor;
+    private List<T> response;
+}
@@ -0,0 +1,44 @@
+package com.assignment.bookservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MultiGetResponse<T> {
+
+    public static final int MAX_IDS = 1000;
+
+    private int recordCount;
+    private List<T> response;
+    private List<Long> missingIds;
+
+    /**
+     * Lists the found records in the order of the requested ids and reports the ids not found.
+     */
+    public static <T> MultiGetResponse<T> of(List<Long> ids, Map<Long, T> found) {
+        List<T> records = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : ids) {
+            T record = found.get(id);
+            if (record != null) {
+                records.add(record);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return MultiGetResponse.<T>builder()
+                .recordCount(records.size())
+                .response(records)
+                .missingIds(missingIds)
+                .build();
+    }
+}
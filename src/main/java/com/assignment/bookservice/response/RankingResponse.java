@@ -0,0 +1,20 @@
+package com.assignment.bookservice.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RankingResponse<T> {
+
+    private String rankedBy;
+    private String genre;
+    private int recordCount;
+    private List<T> response;
+}
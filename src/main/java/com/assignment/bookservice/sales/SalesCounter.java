@@ -0,0 +1,214 @@
+package com.assignment.bookservice.sales;
+
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookView;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * SalesCounter.java
+ *
+ * In-memory accumulation of recorded sales until they are flushed to the book
+ * table. Each book sold has a LongAdder, so concurrent sales of the same hot
+ * title update separate cells instead of contending on one counter or row.
+ *
+ * Draining moves the pending units of a book into a flushing count that is
+ * cleared once the flush has committed, so reads that add the units not yet
+ * in the database do not miss a batch while it is being written. Drained units
+ * are subtracted rather than reset, which keeps sales recorded concurrently
+ * with a drain for the next one.
+ *
+ */
+@Component
+public class SalesCounter {
+
+    private final Map<Long, BookSales> salesByBook = new ConcurrentHashMap<>();
+    private final Map<Long, Set<BookSales>> salesByAuthor = new ConcurrentHashMap<>();
+    private final LongAdder recordedSales = new LongAdder();
+
+    public void record(BookView book, long units) {
+        BookSales sales = salesByBook.get(book.getId());
+        if (sales == null) {
+            sales = salesByBook.computeIfAbsent(book.getId(), id -> {
+                BookSales bookSales = new BookSales(id, book.getAuthorId(), book.getPrice());
+                salesByAuthor.compute(book.getAuthorId(), (authorId, authorSales) -> {
+                    Set<BookSales> updated = authorSales == null ? ConcurrentHashMap.newKeySet() : authorSales;
+                    updated.add(bookSales);
+                    return updated;
+                });
+                return bookSales;
+            });
+        }
+        sales.pending.add(units);
+        recordedSales.increment();
+    }
+
+    /**
+     * Number of sales recorded since startup. It changes with every sale, so it
+     * can tag reads that include pending sales.
+     */
+    public long recordedSales() {
+        return recordedSales.sum();
+    }
+
+    /**
+     * Units of the book that are recorded but not yet in the database.
+     */
+    public long pendingUnits(Long bookId) {
+        BookSales sales = salesByBook.get(bookId);
+        return sales == null ? 0 : sales.unflushed();
+    }
+
+    /**
+     * Units of the author's books that are recorded but not yet in the database.
+     */
+    public long pendingUnitsOfAuthor(Long authorId) {
+        Set<BookSales> authorSales = salesByAuthor.get(authorId);
+        if (authorSales == null) {
+            return 0;
+        }
+        long units = 0;
+        for (BookSales sales : authorSales) {
+            units += sales.unflushed();
+        }
+        return units;
+    }
+
+    public BookView applyTo(BookView book) {
+        long units = pendingUnits(book.getId());
+        if (units == 0) {
+            return book;
+        }
+        return book.withUnitsSold((int) Math.min(Integer.MAX_VALUE, book.getUnitsSold() + units));
+    }
+
+    public List<BookView> applyToBooks(List<BookView> books) {
+        if (salesByBook.isEmpty()) {
+            return books;
+        }
+        return books.stream()
+                .map(this::applyTo)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Adds the pending sales of the author's books to its stats and books.
+     */
+    public AuthorResponseDto applyTo(AuthorResponseDto author) {
+        Set<BookSales> authorSales = salesByAuthor.get(author.getId());
+        if (authorSales == null) {
+            return author;
+        }
+        long units = 0;
+        BigDecimal worth = BigDecimal.ZERO;
+        for (BookSales sales : authorSales) {
+            long bookUnits = sales.unflushed();
+            units += bookUnits;
+            worth = worth.add(sales.price.multiply(BigDecimal.valueOf(bookUnits)));
+        }
+        if (units == 0) {
+            return author;
+        }
+        return author.toBuilder()
+                .books(author.getBooks() == null ? null : applyToBooks(author.getBooks()))
+                .totalUnitsSold(author.getTotalUnitsSold() + units)
+                .totalBookWorth(author.getTotalBookWorth().add(worth))
+                .build();
+    }
+
+    public List<AuthorResponseDto> applyToAuthors(List<AuthorResponseDto> authors) {
+        if (salesByAuthor.isEmpty()) {
+            return authors;
+        }
+        return authors.stream()
+                .map(this::applyTo)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Takes the pending units of every book for a flush, in book id order so
+     * the flush locks the book rows in the same order as bulk deletes. Must be
+     * followed by either flushed or restored with the returned deltas, and only
+     * one drain may be in progress at a time.
+     */
+    public List<SalesDelta> drain() {
+        List<SalesDelta> deltas = new ArrayList<>();
+        for (BookSales sales : salesByBook.values()) {
+            long units = sales.pending.sum();
+            if (units != 0) {
+                sales.pending.add(-units);
+                sales.flushing.addAndGet(units);
+                deltas.add(new SalesDelta(sales.bookId, sales.authorId, sales.price, units));
+            }
+        }
+        deltas.sort(Comparator.comparing(SalesDelta::getBookId));
+        return deltas;
+    }
+
+    /**
+     * Marks drained deltas as written to the database.
+     */
+    public void flushed(List<SalesDelta> deltas) {
+        for (SalesDelta delta : deltas) {
+            BookSales sales = salesByBook.get(delta.getBookId());
+            if (sales != null) {
+                sales.flushing.addAndGet(-delta.getUnits());
+            }
+        }
+    }
+
+    /**
+     * Returns drained deltas whose flush failed to the pending units.
+     */
+    public void restore(List<SalesDelta> deltas) {
+        for (SalesDelta delta : deltas) {
+            BookSales sales = salesByBook.get(delta.getBookId());
+            if (sales != null) {
+                sales.pending.add(delta.getUnits());
+                sales.flushing.addAndGet(-delta.getUnits());
+            }
+        }
+    }
+
+    /**
+     * Drops the sales of a deleted book.
+     */
+    public void remove(Long bookId) {
+        BookSales sales = salesByBook.remove(bookId);
+        if (sales != null) {
+            salesByAuthor.computeIfPresent(sales.authorId, (authorId, authorSales) -> {
+                authorSales.remove(sales);
+                return authorSales.isEmpty() ? null : authorSales;
+            });
+        }
+    }
+
+    private static final class BookSales {
+
+        private final Long bookId;
+        private final Long authorId;
+        private final BigDecimal price;
+        private final LongAdder pending = new LongAdder();
+        private final AtomicLong flushing = new AtomicLong();
+
+        private BookSales(Long bookId, Long authorId, BigDecimal price) {
+            this.bookId = bookId;
+            this.authorId = authorId;
+            this.price = price;
+        }
+
+        private long unflushed() {
+            return pending.sum() + flushing.get();
+        }
+    }
+}
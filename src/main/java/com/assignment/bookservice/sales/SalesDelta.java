@@ -0,0 +1,24 @@
+package com.assignment.bookservice.sales;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+/**
+ * SalesDelta.java
+ *
+ * Units sold of one book that are not yet written to the book table.
+ *
+ */
+@Value
+public class SalesDelta {
+
+    Long bookId;
+    Long authorId;
+    BigDecimal price;
+    long units;
+
+    public BigDecimal getWorth() {
+        return price.multiply(BigDecimal.valueOf(units));
+    }
+}
@@ -0,0 +1,196 @@
+package com.assignment.bookservice.search;
+
+import com.assignment.bookservice.dto.BookView;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * BookSearchIndex.java
+ *
+ * In-process inverted index over book titles and descriptions. Terms are kept
+ * sorted so a query token matches every indexed term it is a prefix of. All
+ * query tokens must match, and books are ranked by the sum of per-token scores
+ * (term weight times inverse document frequency, with title terms weighted
+ * higher and prefix matches lower than exact ones). Queries are answered from
+ * the indexed books without reading the database.
+ *
+ */
+@Component
+public class BookSearchIndex {
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    static final int TITLE_WEIGHT = 3;
+    static final int DESCRIPTION_WEIGHT = 1;
+    static final double PREFIX_MATCH_FACTOR = 0.5;
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> book id -> weighted term frequency
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, BookView> books = new HashMap<>();
+
+    /**
+     * Adds the book to the index, replacing a previously indexed version of it.
+     */
+    public void add(BookView book) {
+        lock.writeLock().lock();
+        try {
+            BookView previous = books.put(book.getId(), book);
+            if (previous != null) {
+                removePostings(previous);
+            }
+            termWeights(book).forEach((term, weight) ->
+                    postings.computeIfAbsent(term, key -> new HashMap<>()).put(book.getId(), weight));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addAll(Collection<BookView> booksToAdd) {
+        booksToAdd.forEach(this::add);
+    }
+
+    /**
+     * Re-indexes books that are still indexed, leaving out books deleted meanwhile.
+     */
+    public void replaceAll(Collection<BookView> booksToReplace) {
+        lock.writeLock().lock();
+        try {
+            for (BookView book : booksToReplace) {
+                if (books.containsKey(book.getId())) {
+                    add(book);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long bookId) {
+        lock.writeLock().lock();
+        try {
+            BookView previous = books.remove(bookId);
+            if (previous != null) {
+                removePostings(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            books.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return books.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns up to limit books matching every token of the query, best match first.
+     */
+    public List<BookView> search(String query, int limit) {
+        Set<String> tokens = new LinkedHashSet<>(tokenize(query));
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = null;
+            for (String token : tokens) {
+                Map<Long, Double> tokenScores = score(token);
+                if (scores == null) {
+                    scores = tokenScores;
+                } else {
+                    scores.keySet().retainAll(tokenScores.keySet());
+                    scores.replaceAll((bookId, score) -> score + tokenScores.get(bookId));
+                }
+                if (scores.isEmpty()) {
+                    return List.of();
+                }
+            }
+            return scores.entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder())
+                            .thenComparing(Map.Entry.comparingByKey()))
+                    .limit(limit)
+                    .map(entry -> books.get(entry.getKey()))
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : TOKEN_SEPARATOR.split(text.toLowerCase(Locale.ROOT))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Best score per book over all indexed terms starting with the token.
+     */
+    private Map<Long, Double> score(String token) {
+        Map<Long, Double> scores = new HashMap<>();
+        int documentCount = books.size();
+        postings.subMap(token, true, token + Character.MAX_VALUE, false).forEach((term, termPostings) -> {
+            double idf = Math.log(1 + (documentCount - termPostings.size() + 0.5) / (termPostings.size() + 0.5));
+            double factor = term.equals(token) ? 1 : PREFIX_MATCH_FACTOR;
+            termPostings.forEach((bookId, weight) -> scores.merge(bookId, weight * idf * factor, Math::max));
+        });
+        return scores;
+    }
+
+    private void removePostings(BookView book) {
+        for (String term : termWeights(book).keySet()) {
+            Map<Long, Integer> termPostings = postings.get(term);
+            if (termPostings != null) {
+                termPostings.remove(book.getId());
+                if (termPostings.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private static Map<String, Integer> termWeights(BookView book) {
+        Map<String, Integer> weights = new HashMap<>();
+        tokenize(book.getTitle()).forEach(term -> weights.merge(term, TITLE_WEIGHT, Integer::sum));
+        tokenize(book.getDescription()).forEach(term -> weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum));
+        return weights;
+    }
+}
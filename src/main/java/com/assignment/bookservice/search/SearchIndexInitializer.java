@@ -0,0 +1,51 @@
+package com.assignment.bookservice.search;
+
+import com.assignment.bookservice.service.BookService;
+import com.assignment.bookservice.snapshot.CatalogSnapshotInitializer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * SearchIndexInitializer.java
+ *
+ * Rebuilds the book search index from the database on startup, after a
+ * snapshot restore and before the web server accepts requests, so no save or
+ * delete can interleave with the rebuild. Afterwards the index is kept up to
+ * date by BookService as books are saved and deleted.
+ *
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SearchIndexInitializer implements SmartLifecycle {
+
+    private final BookService bookService;
+    private final BookSearchIndex bookSearchIndex;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        bookSearchIndex.clear();
+        bookService.exportBooks(bookSearchIndex::add);
+        log.info("Indexed {} books for search", bookSearchIndex.size());
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return CatalogSnapshotInitializer.PHASE + 1;
+    }
+}
@@ -0,0 +1,88 @@
+package com.assignment.bookservice.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * CachingAuthenticationProvider.java
+ *
+ * Remembers successful username and password authentications for a short
+ * time, so repeated Basic requests skip the adaptive password hash of the
+ * delegate. Entries are keyed by an HMAC of the credentials under a random
+ * key generated at startup, so neither the passwords nor unsalted hashes of
+ * them are kept in memory. Failed authentications are never cached.
+ *
+ * A changed password or a disabled user takes effect for cached credentials
+ * once their entry expires.
+ *
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    static final long MAX_ENTRIES = 1_000;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private final AuthenticationProvider delegate;
+    private final Cache<String, Authentication> authentications;
+    private final SecretKey key;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, Duration ttl) {
+        this.delegate = delegate;
+        this.authentications = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(MAX_ENTRIES)
+                .build();
+        try {
+            this.key = KeyGenerator.getInstance(MAC_ALGORITHM).generateKey();
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Failed to create the authentication cache key", ex);
+        }
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (!(authentication.getCredentials() instanceof String)) {
+            return delegate.authenticate(authentication);
+        }
+        String cacheKey = cacheKey(authentication.getName(), (String) authentication.getCredentials());
+        Authentication cached = authentications.getIfPresent(cacheKey);
+        if (cached != null) {
+            return new UsernamePasswordAuthenticationToken(cached.getPrincipal(), null, cached.getAuthorities());
+        }
+        Authentication result = delegate.authenticate(authentication);
+        if (result != null && result.isAuthenticated()) {
+            authentications.put(cacheKey, result);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+
+    private String cacheKey(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            mac.update(username.getBytes(StandardCharsets.UTF_8));
+            // separates the username from the password, which may both contain any other character
+            mac.update((byte) 0);
+            return Base64.getEncoder().encodeToString(mac.doFinal(password.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException("Failed to compute the authentication cache key", ex);
+        }
+    }
+}
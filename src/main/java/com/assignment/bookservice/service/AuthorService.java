@@ -1,22 +1,48 @@
 package com.assignment.bookservice.service;
 
+import com.assignment.bookservice.coalescing.SingleFlight;
 import com.assignment.bookservice.dto.AuthorDto;
 import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookView;
 import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.AuthorStats;
 import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.exception.AuthorHasBooksException;
 import com.assignment.bookservice.exception.AuthorNotFoundException;
+import com.assignment.bookservice.pagination.Cursor;
+import com.assignment.bookservice.pagination.CursorPage;
 import com.assignment.bookservice.repository.AuthorRepository;
+import com.assignment.bookservice.repository.AuthorStatsRepository;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.response.MultiGetResponse;
+import com.assignment.bookservice.sales.SalesDelta;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
+import static com.assignment.bookservice.configuration.CacheConfiguration.AUTHORS_CACHE;
 import static java.lang.String.format;
 
 /**
@@ -30,44 +56,280 @@ import static java.lang.String.format;
 @AllArgsConstructor
 public class AuthorService {
 
+    /**
+     * Number of ids read with one IN query by a multi-get.
+     */
+    private static final int MULTI_GET_CHUNK_SIZE = 1000;
+
     private final AuthorRepository authorRepository;
+    private final AuthorStatsRepository authorStatsRepository;
+    private final BookRepository bookRepository;
+    private final CatalogVersion catalogVersion;
+    private final CacheManager cacheManager;
+    private final SingleFlight<List<Object>, Page<AuthorResponseDto>> pageReads = new SingleFlight<>();
+    private final SingleFlight<List<Object>, CursorPage<AuthorResponseDto>> cursorReads = new SingleFlight<>();
 
-    public Author findById(Long authorId) {
+    /**
+     * Cached point lookup of an author with its books and precomputed statistics.
+     */
+    @Transactional(readOnly = true)
+    @Cacheable(cacheNames = AUTHORS_CACHE, key = "#authorId", sync = true)
+    public AuthorResponseDto findById(Long authorId) {
         log.debug("Retrieving author with id {}", authorId);
-        return authorRepository.findById(authorId)
+        Author author = authorRepository.findById(authorId)
+                .orElseThrow(() -> new AuthorNotFoundException(format("Author with id %s not found", authorId)));
+        List<BookView> books = bookRepository.findViewsByAuthorIdIn(List.of(authorId));
+        AuthorStats stats = authorStatsRepository.findById(authorId)
+                .orElseGet(() -> AuthorStats.empty(authorId));
+        return toResponseDto(author, books, stats);
+    }
+
+    /**
+     * Multi-get of authors, listed in the order of the given ids. Authors in
+     * the authors cache are taken from it; the others are read with one IN
+     * query per chunk of ids, with their books and stats read set-wise. Those
+     * are not added to the cache, as unlike the synchronized point load a bulk
+     * put could overwrite a concurrent eviction.
+     */
+    public MultiGetResponse<AuthorResponseDto> findByIds(List<Long> ids, boolean includeBooks) {
+        List<Long> distinctIds = ids.stream()
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, AuthorResponseDto> authors = new HashMap<>();
+        List<Long> uncachedIds = new ArrayList<>();
+        Cache authorsCache = cacheManager.getCache(AUTHORS_CACHE);
+        for (Long id : distinctIds) {
+            AuthorResponseDto author = authorsCache == null ? null : authorsCache.get(id, AuthorResponseDto.class);
+            if (author != null) {
+                // cached authors always include their books
+                authors.put(id, includeBooks ? author : author.toBuilder().books(null).build());
+            } else {
+                uncachedIds.add(id);
+            }
+        }
+        for (int from = 0; from < uncachedIds.size(); from += MULTI_GET_CHUNK_SIZE) {
+            List<Long> chunk = uncachedIds.subList(from, Math.min(from + MULTI_GET_CHUNK_SIZE, uncachedIds.size()));
+            toResponseDtos(authorRepository.findAllById(chunk), includeBooks)
+                    .forEach(author -> authors.put(author.getId(), author));
+        }
+        return MultiGetResponse.of(distinctIds, authors);
+    }
+
+    public Long findAuthorVersion(Long authorId) {
+        return authorRepository.findVersionById(authorId)
                 .orElseThrow(() -> new AuthorNotFoundException(format("Author with id %s not found", authorId)));
     }
 
+    public String getCatalogVersion() {
+        return catalogVersion.current();
+    }
+
+    /**
+     * Returns which of the given author ids exist, using a single IN query.
+     */
+    public Set<Long> findExistingIds(Collection<Long> authorIds) {
+        if (authorIds.isEmpty()) {
+            return Set.of();
+        }
+        return new HashSet<>(authorRepository.findExistingIds(authorIds));
+    }
+
+    @Transactional
     public Author saveAuthor(AuthorDto authorDto) {
         log.debug("Saving author...");
         Author author = Author.builder()
                 .firstName(authorDto.getFirstName())
                 .lastName(authorDto.getLastName())
                 .build();
-        return authorRepository.save(author);
-    }
-
-    public Page<AuthorResponseDto> findAuthors(Integer pageNumber, Integer pageSize) {
-        Page<Author> authors = authorRepository.findAll(PageRequest.of(pageNumber, pageSize));
-        List<AuthorResponseDto> responseDtoList = authors.getContent().stream()
-                .map(author -> AuthorResponseDto.builder()
-                        .id(author.getId())
-                        .firstName(author.getFirstName())
-                        .lastName(author.getLastName())
-                        .books(author.getBooks())
-                        .totalBookWorth(calculateTotalBookWorth(author.getBooks()))
-                        .build())
-                .collect(Collectors.toList());
-        return new PageImpl<>(responseDtoList);
+        Author savedAuthor = authorRepository.save(author);
+        authorStatsRepository.save(AuthorStats.empty(savedAuthor.getId()));
+        catalogVersion.increment();
+        return savedAuthor;
     }
 
+    /**
+     * Concurrent identical page reads share one set of queries. The catalog
+     * version is part of the key, so a read started after a write has
+     * committed does not share an older result.
+     */
+    public Page<AuthorResponseDto> findAuthors(Integer pageNumber, Integer pageSize, boolean includeBooks) {
+        return pageReads.load(Arrays.asList(catalogVersion.current(), pageNumber, pageSize, includeBooks), () -> {
+            Page<Author> authors = authorRepository.findAll(PageRequest.of(pageNumber, pageSize));
+            return new PageImpl<>(toResponseDtos(authors.getContent(), includeBooks), authors.getPageable(), authors.getTotalElements());
+        });
+    }
+
+    /**
+     * Reads the authors following the given cursor using an id seek; no count query is run.
+     */
+    public CursorPage<AuthorResponseDto> findAuthorsAfter(String after, int limit, boolean includeBooks) {
+        int pageLimit = Math.min(limit, CursorPage.MAX_LIMIT);
+        return cursorReads.load(Arrays.asList(catalogVersion.current(), after, pageLimit, includeBooks), () -> {
+            List<Author> authors = authorRepository.findByIdGreaterThanOrderByIdAsc(Cursor.decode(after), PageRequest.of(0, pageLimit + 1));
+            CursorPage<Author> page = CursorPage.of(authors, pageLimit, Author::getId);
+            return new CursorPage<>(toResponseDtos(page.getContent(), includeBooks), page.getNextCursor());
+        });
+    }
+
+    /**
+     * Deletes an author without books. Whether there are books is answered by
+     * an existence query, and the author and its stats are deleted without
+     * being loaded.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = AUTHORS_CACHE, key = "#id")
     public void deleteAuthor(Long id) {
-        authorRepository.deleteById(id);
+        if (bookRepository.existsByAuthorId(id)) {
+            throw new AuthorHasBooksException(format("Author with id %s still has books", id));
+        }
+        authorStatsRepository.deleteStatsByAuthorId(id);
+        int deletedCount;
+        try {
+            deletedCount = authorRepository.deleteAuthorById(id);
+        } catch (DataIntegrityViolationException ex) {
+            // a book was added after the existence check
+            throw new AuthorHasBooksException(format("Author with id %s still has books", id));
+        }
+        if (deletedCount == 0) {
+            throw new AuthorNotFoundException(format("Author with id %s not found", id));
+        }
+        catalogVersion.increment();
+    }
+
+    /**
+     * Adds the given books to their authors' stats. Must be called in the
+     * transaction that saves the books.
+     */
+    @Transactional
+    public void recordBooksAdded(Collection<Book> books) {
+        applyToStats(books.stream()
+                .map(BookView::of)
+                .collect(Collectors.toList()), 1);
+    }
+
+    /**
+     * Removes the given books from their authors' stats. Must be called in the
+     * transaction that deletes the books.
+     */
+    @Transactional
+    public void recordBooksRemoved(Collection<BookView> books) {
+        applyToStats(books, -1);
+    }
+
+    /**
+     * Adds flushed sales to their authors' stats. Must be called in the
+     * transaction that adds them to the books.
+     */
+    @Transactional
+    public void recordSales(Collection<SalesDelta> sales) {
+        Map<Long, List<SalesDelta>> salesByAuthor = sales.stream()
+                .collect(Collectors.groupingBy(SalesDelta::getAuthorId, TreeMap::new, Collectors.toList()));
+        authorRepository.incrementVersions(salesByAuthor.keySet());
+        salesByAuthor.forEach((authorId, authorSales) -> {
+            long unitsSold = authorSales.stream().mapToLong(SalesDelta::getUnits).sum();
+            BigDecimal bookWorth = authorSales.stream()
+                    .map(SalesDelta::getWorth)
+                    .reduce(BigDecimal.ZERO, BigDecimal::add);
+            if (authorStatsRepository.addToStats(authorId, 0, unitsSold, bookWorth) == 0) {
+                // the consistency check rebuilds the missing stats from the book table
+                log.warn("No stats found for author with id {}", authorId);
+            }
+        });
+    }
+
+    /**
+     * Ids of the authors whose stats no longer match their books.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findAuthorsWithInconsistentStats() {
+        return authorStatsRepository.findInconsistentAuthorIds();
     }
 
-    private BigDecimal calculateTotalBookWorth(List<Book> books) {
-        return books.stream()
-                .map(book -> book.getPrice().multiply(BigDecimal.valueOf(book.getUnitsSold())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    /**
+     * Recomputes the stats of every author from the book table. Bumping every
+     * author's version first locks the author rows, which each stats delta
+     * takes before touching the stats, so deltas committed before the rebuild
+     * are part of the aggregate and deltas applied after it are added on top.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = AUTHORS_CACHE, allEntries = true)
+    public int rebuildAuthorStats() {
+        authorRepository.incrementAllVersions();
+        int rebuilt = authorStatsRepository.mergeStatsFromBooks();
+        authorStatsRepository.deleteOrphanedStats();
+        catalogVersion.increment();
+        return rebuilt;
+    }
+
+    /**
+     * Locks the authors by bumping their versions before applying the deltas,
+     * in author id order, so stats writers and the rebuild take their locks in
+     * the same order and never deadlock.
+     */
+    private void applyToStats(Collection<BookView> books, int sign) {
+        Map<Long, List<BookView>> booksByAuthor = books.stream()
+                .collect(Collectors.groupingBy(BookView::getAuthorId, TreeMap::new, Collectors.toList()));
+        authorRepository.incrementVersions(booksByAuthor.keySet());
+        booksByAuthor.forEach((authorId, authorBooks) -> {
+            long bookCount = sign * authorBooks.size();
+            long unitsSold = sign * authorBooks.stream().mapToLong(BookView::getUnitsSold).sum();
+            BigDecimal bookWorth = authorBooks.stream()
+                    .map(book -> book.getPrice().multiply(BigDecimal.valueOf(book.getUnitsSold())))
+                    .reduce(BigDecimal.ZERO, BigDecimal::add)
+                    .multiply(BigDecimal.valueOf(sign));
+            if (authorStatsRepository.addToStats(authorId, bookCount, unitsSold, bookWorth) == 0) {
+                // the consistency check rebuilds the missing stats from the book table
+                log.warn("No stats found for author with id {}", authorId);
+            }
+        });
+    }
+
+    private List<AuthorResponseDto> toResponseDtos(List<Author> authors, boolean includeBooks) {
+        Map<Long, List<BookView>> books = includeBooks ? findBooks(authors) : Map.of();
+        Map<Long, AuthorStats> stats = findStats(authors);
+        return authors.stream()
+                .map(author -> toResponseDto(author,
+                        includeBooks ? books.getOrDefault(author.getId(), List.of()) : null,
+                        stats.getOrDefault(author.getId(), AuthorStats.empty(author.getId()))))
+                .collect(Collectors.toList());
+    }
+
+    private static AuthorResponseDto toResponseDto(Author author, List<BookView> books, AuthorStats stats) {
+        return AuthorResponseDto.builder()
+                .id(author.getId())
+                .firstName(author.getFirstName())
+                .lastName(author.getLastName())
+                .books(books)
+                .bookCount(stats.getBookCount())
+                .totalUnitsSold(stats.getTotalUnitsSold())
+                .totalBookWorth(stats.getTotalBookWorth())
+                .version(author.getVersion())
+                .build();
+    }
+
+    /**
+     * Reads the books of all given authors as projections in one query, so a page
+     * of authors never triggers one lazy collection load per author.
+     */
+    private Map<Long, List<BookView>> findBooks(List<Author> authors) {
+        if (authors.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = authors.stream()
+                .map(Author::getId)
+                .collect(Collectors.toList());
+        return bookRepository.findViewsByAuthorIdIn(ids).stream()
+                .collect(Collectors.groupingBy(BookView::getAuthorId));
+    }
+
+    private Map<Long, AuthorStats> findStats(List<Author> authors) {
+        if (authors.isEmpty()) {
+            return Map.of();
+        }
+        List<Long> ids = authors.stream()
+                .map(Author::getId)
+                .collect(Collectors.toList());
+        return authorStatsRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(AuthorStats::getAuthorId, Function.identity()));
     }
 }
@@ -1,18 +1,59 @@
 package com.assignment.bookservice.service;
 
+import com.assignment.bookservice.coalescing.SingleFlight;
 import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.dto.BookView;
 import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
+import com.assignment.bookservice.exception.AuthorNotFoundException;
 import com.assignment.bookservice.exception.BookAlreadyExistsException;
 import com.assignment.bookservice.exception.BookNotFoundException;
+import com.assignment.bookservice.pagination.Cursor;
+import com.assignment.bookservice.pagination.CursorPage;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.ranking.RankingOrder;
 import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.response.BatchItemResult;
+import com.assignment.bookservice.response.BatchItemStatus;
+import com.assignment.bookservice.response.BatchResponse;
+import com.assignment.bookservice.response.BulkDeleteResponse;
+import com.assignment.bookservice.response.MultiGetResponse;
+import com.assignment.bookservice.search.BookSearchIndex;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.util.Optional;
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+import static com.assignment.bookservice.configuration.CacheConfiguration.AUTHORS_CACHE;
+import static com.assignment.bookservice.configuration.CacheConfiguration.BOOKS_CACHE;
 import static java.lang.String.format;
 
 /**
@@ -28,35 +69,426 @@ public class BookService {
 
     private final BookRepository bookRepository;
     private final AuthorService authorService;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final BookSearchIndex bookSearchIndex;
+    private final BestsellerRanking bestsellerRanking;
+    private final CatalogVersion catalogVersion;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
 
-    public Book findBook(Long id) {
+    /**
+     * Number of books checked and inserted, or deleted, together; keeps the IN
+     * lists of the duplicate and author checks and of deletes bounded for very
+     * large batches.
+     */
+    private static final int BATCH_CHUNK_SIZE = 1000;
+
+    /**
+     * Times a batch chunk is checked and inserted before a constraint violation
+     * caused by concurrent writes is given up on.
+     */
+    private static final int MAX_CHUNK_ATTEMPTS = 3;
+
+    private final SingleFlight<List<Object>, Page<BookView>> pageReads = new SingleFlight<>();
+    private final SingleFlight<List<Object>, CursorPage<BookView>> cursorReads = new SingleFlight<>();
+
+    @Cacheable(cacheNames = BOOKS_CACHE, key = "#id", sync = true)
+    public BookView findBook(Long id) {
         log.debug("Retrieving book with id {}", id);
-        return bookRepository.findById(id)
+        return bookRepository.findViewById(id)
                 .orElseThrow(() -> new BookNotFoundException(format("Book not found with id: %s", id)));
     }
 
-    public void saveBook(BookDto bookDto) {
-        //check for duplicate book entry
-        Optional<Book> bookExists = bookRepository.findByTitleAndAuthorId(bookDto.getTitle(), bookDto.getAuthorId());
-        if (bookExists.isPresent()) {
-            throw new BookAlreadyExistsException(format("Book with title %s and author with id %s already exists", bookDto.getTitle(), bookDto.getAuthorId()));
+    /**
+     * Multi-get of books, listed in the order of the given ids. Books in the
+     * books cache are taken from it; the others are read with one IN query per
+     * chunk of ids. Those are not added to the cache, as unlike the
+     * synchronized point load a bulk put could overwrite a concurrent eviction.
+     */
+    public MultiGetResponse<BookView> findBooksByIds(List<Long> ids) {
+        List<Long> distinctIds = ids.stream()
+                .distinct()
+                .collect(Collectors.toList());
+        Map<Long, BookView> books = new HashMap<>();
+        List<Long> uncachedIds = new ArrayList<>();
+        Cache booksCache = cacheManager.getCache(BOOKS_CACHE);
+        for (Long id : distinctIds) {
+            BookView book = booksCache == null ? null : booksCache.get(id, BookView.class);
+            if (book != null) {
+                books.put(id, book);
+            } else {
+                uncachedIds.add(id);
+            }
+        }
+        for (int from = 0; from < uncachedIds.size(); from += BATCH_CHUNK_SIZE) {
+            List<Long> chunk = uncachedIds.subList(from, Math.min(from + BATCH_CHUNK_SIZE, uncachedIds.size()));
+            bookRepository.findViewsByIdIn(chunk).forEach(book -> books.put(book.getId(), book));
         }
+        return MultiGetResponse.of(distinctIds, books);
+    }
+
+    public Long findBookVersion(Long id) {
+        return bookRepository.findVersionById(id)
+                .orElseThrow(() -> new BookNotFoundException(format("Book not found with id: %s", id)));
+    }
 
-        //check if author exists
-        authorService.findById(bookDto.getAuthorId());
+    public String getCatalogVersion() {
+        return catalogVersion.current();
+    }
 
+    /**
+     * Inserts the book without checking for it first. Duplicates and unknown authors
+     * are rejected by the unique (title, author_id) constraint and the author foreign
+     * key, which also holds for concurrent requests. The author's stats are updated
+     * in the same transaction.
+     */
+    @Transactional
+    @CacheEvict(cacheNames = AUTHORS_CACHE, key = "#bookDto.authorId")
+    public void saveBook(BookDto bookDto) {
         Book book = toBook(bookDto);
-        bookRepository.save(book);
+        try {
+            bookRepository.saveAndFlush(book);
+        } catch (DataIntegrityViolationException ex) {
+            String constraintName = violatedConstraintName(ex);
+            if (constraintName.contains(Book.TITLE_AUTHOR_UNIQUE_CONSTRAINT.toUpperCase())) {
+                throw new BookAlreadyExistsException(format("Book with title %s and author with id %s already exists", bookDto.getTitle(), bookDto.getAuthorId()));
+            }
+            if (constraintName.contains(Book.AUTHOR_FOREIGN_KEY.toUpperCase())) {
+                throw new AuthorNotFoundException(format("Author with id %s not found", bookDto.getAuthorId()));
+            }
+            throw ex;
+        }
+        authorService.recordBooksAdded(List.of(book));
+        BookView view = BookView.of(book);
+        afterCommit(() -> {
+            bookSearchIndex.add(view);
+            bestsellerRanking.add(view);
+        });
+        catalogVersion.increment();
     }
 
+    /**
+     * Saves a batch of books, reporting a result per item. Duplicate and author
+     * checks are done set-wise per chunk and the valid books are inserted using
+     * JDBC batching, together with the stats of their authors. Each chunk is
+     * saved in its own transaction; see {@link #saveChunkInTransaction}.
+     */
+    @CacheEvict(cacheNames = AUTHORS_CACHE, allEntries = true)
+    public BatchResponse saveBooks(List<BookDto> bookDtos) {
+        List<BatchItemResult> results = new ArrayList<>(bookDtos.size());
+        for (int from = 0; from < bookDtos.size(); from += BATCH_CHUNK_SIZE) {
+            int to = Math.min(from + BATCH_CHUNK_SIZE, bookDtos.size());
+            results.addAll(saveChunkInTransaction(bookDtos.subList(from, to), from));
+        }
+        int createdCount = (int) results.stream()
+                .filter(result -> result.getStatus() == BatchItemStatus.CREATED)
+                .count();
+        if (createdCount > 0) {
+            catalogVersion.increment();
+        }
+        return BatchResponse.builder()
+                .createdCount(createdCount)
+                .failedCount(results.size() - createdCount)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * Deletes the book with one locking read of the columns its author's stats
+     * need and one delete statement.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS_CACHE, key = "#id"),
+            @CacheEvict(cacheNames = AUTHORS_CACHE, allEntries = true)
+    })
+    @Transactional
     public void deleteBook(Long id) {
         log.debug("Deleting book with id {}", id);
-        bookRepository.deleteById(id);
+        if (deleteChunk(List.of(id)).isEmpty()) {
+            throw new BookNotFoundException(format("Book not found with id: %s", id));
+        }
+        catalogVersion.increment();
         log.debug("Deleted book with id {}", id);
     }
 
-    public Page<Book> findBooks(Integer pageNumber, Integer pageSize) {
-        return bookRepository.findAll(PageRequest.of(pageNumber, pageSize));
+    /**
+     * Deletes the given books with set-based deletes, one per chunk of ids,
+     * and reports the ids that were not found.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = AUTHORS_CACHE, allEntries = true)
+    })
+    @Transactional
+    public BulkDeleteResponse deleteBooks(Collection<Long> ids) {
+        return deleteInChunks(ids.stream()
+                .distinct()
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Deletes all books of the given author, e.g. of a retired imprint.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = AUTHORS_CACHE, allEntries = true)
+    })
+    @Transactional
+    public BulkDeleteResponse deleteBooksByAuthor(Long authorId) {
+        if (authorService.findExistingIds(Set.of(authorId)).isEmpty()) {
+            throw new AuthorNotFoundException(format("Author with id %s not found", authorId));
+        }
+        return deleteInChunks(bookRepository.findIdsByAuthorId(authorId));
+    }
+
+    /**
+     * Deletes the author together with all of its books in one transaction.
+     */
+    @Caching(evict = {
+            @CacheEvict(cacheNames = BOOKS_CACHE, allEntries = true),
+            @CacheEvict(cacheNames = AUTHORS_CACHE, allEntries = true)
+    })
+    @Transactional
+    public BulkDeleteResponse deleteAuthorWithBooks(Long authorId) {
+        BulkDeleteResponse response = deleteBooksByAuthor(authorId);
+        authorService.deleteAuthor(authorId);
+        return response;
+    }
+
+    /**
+     * Concurrent identical page reads share one query; see {@link #readKey}.
+     */
+    public Page<BookView> findBooks(Integer pageNumber, Integer pageSize) {
+        return pageReads.load(readKey(null, pageNumber, pageSize),
+                () -> bookRepository.findAllViews(PageRequest.of(pageNumber, pageSize)));
+    }
+
+    /**
+     * Reads the books following the given cursor using an id seek; no count query is run.
+     */
+    public CursorPage<BookView> findBooksAfter(String after, int limit) {
+        int pageLimit = Math.min(limit, CursorPage.MAX_LIMIT);
+        return cursorReads.load(readKey(null, after, pageLimit), () -> {
+            List<BookView> books = bookRepository.findViewsAfter(Cursor.decode(after), PageRequest.of(0, pageLimit + 1));
+            return CursorPage.of(books, pageLimit, BookView::getId);
+        });
+    }
+
+    public Page<BookView> findBooksByGenre(Genre genre, Integer pageNumber, Integer pageSize) {
+        return pageReads.load(readKey(genre, pageNumber, pageSize),
+                () -> bookRepository.findViewsByGenre(genre, PageRequest.of(pageNumber, pageSize, Sort.by("id"))));
+    }
+
+    public CursorPage<BookView> findBooksByGenreAfter(Genre genre, String after, int limit) {
+        int pageLimit = Math.min(limit, CursorPage.MAX_LIMIT);
+        return cursorReads.load(readKey(genre, after, pageLimit), () -> {
+            List<BookView> books = bookRepository.findViewsByGenreAfter(genre, Cursor.decode(after), PageRequest.of(0, pageLimit + 1));
+            return CursorPage.of(books, pageLimit, BookView::getId);
+        });
+    }
+
+    /**
+     * Full-text search over title and description, answered from the in-process index.
+     */
+    public List<BookView> searchBooks(String query, int limit) {
+        return bookSearchIndex.search(query, Math.min(limit, BookSearchIndex.MAX_LIMIT));
+    }
+
+    /**
+     * The n best-selling books, answered from the in-process ranking.
+     */
+    public List<BookView> findTopBooks(RankingOrder order, Genre genre, int n) {
+        return bestsellerRanking.top(order, genre, Math.min(n, BestsellerRanking.MAX_LIMIT));
+    }
+
+    /**
+     * Streams every book of the catalog to the given consumer. Books are read as
+     * projections, so the persistence context stays empty whatever the catalog size.
+     */
+    @Transactional(readOnly = true)
+    public void exportBooks(Consumer<BookView> consumer) {
+        try (Stream<BookView> books = bookRepository.streamAllViews()) {
+            books.forEach(consumer);
+        }
+    }
+
+    /**
+     * Key of a coalesced read. The catalog version is part of it, so a read
+     * started after a write has committed does not share an older result.
+     */
+    private List<Object> readKey(Genre genre, Object position, int size) {
+        return Arrays.asList(catalogVersion.current(), genre, position, size);
+    }
+
+    private BulkDeleteResponse deleteInChunks(List<Long> ids) {
+        Set<Long> deletedIds = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += BATCH_CHUNK_SIZE) {
+            int to = Math.min(from + BATCH_CHUNK_SIZE, ids.size());
+            deleteChunk(ids.subList(from, to)).forEach(book -> deletedIds.add(book.getId()));
+        }
+        if (!deletedIds.isEmpty()) {
+            catalogVersion.increment();
+        }
+        return BulkDeleteResponse.builder()
+                .deletedCount(deletedIds.size())
+                .missingIds(ids.stream()
+                        .filter(id -> !deletedIds.contains(id))
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    /**
+     * Locks and deletes the existing books among the given ids and removes them
+     * from their authors' stats and, after commit, the in-memory read models.
+     * Returns the deleted books.
+     */
+    private List<BookView> deleteChunk(List<Long> ids) {
+        List<BookView> books = bookRepository.lockViewsByIdIn(ids);
+        if (books.isEmpty()) {
+            return books;
+        }
+        List<Long> existingIds = books.stream()
+                .map(BookView::getId)
+                .collect(Collectors.toList());
+        bookRepository.deleteByIdIn(existingIds);
+        authorService.recordBooksRemoved(books);
+        afterCommit(() -> existingIds.forEach(id -> {
+            bookSearchIndex.remove(id);
+            bestsellerRanking.remove(id);
+        }));
+        return books;
+    }
+
+    /**
+     * A book inserted concurrently after the duplicate and author checks fails
+     * the chunk on the unique constraint or the author foreign key. The chunk is
+     * then rolled back and checked and inserted again, so the conflicting books
+     * are reported as DUPLICATE or AUTHOR_NOT_FOUND instead of failing the batch.
+     * Within a caller's transaction the chunk cannot be rolled back on its own,
+     * so the violation is rethrown.
+     */
+    private List<BatchItemResult> saveChunkInTransaction(List<BookDto> chunk, int offset) {
+        boolean joinsTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    List<BatchItemResult> results = saveChunk(chunk, offset);
+                    // keep the persistence context bounded by the chunk size
+                    entityManager.clear();
+                    return results;
+                });
+            } catch (DataIntegrityViolationException ex) {
+                if (joinsTransaction || attempt == MAX_CHUNK_ATTEMPTS) {
+                    throw ex;
+                }
+                log.debug("Batch chunk at index {} conflicted with a concurrent write, checking it again", offset, ex);
+            }
+        }
+    }
+
+    private List<BatchItemResult> saveChunk(List<BookDto> chunk, int offset) {
+        BatchItemResult[] results = new BatchItemResult[chunk.size()];
+        List<Integer> validIndexes = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Set<ConstraintViolation<BookDto>> violations = validator.validate(chunk.get(i));
+            if (violations.isEmpty()) {
+                validIndexes.add(i);
+            } else {
+                results[i] = failure(offset + i, BatchItemStatus.INVALID, violations.stream()
+                        .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+            }
+        }
+
+        Set<Long> authorIds = validIndexes.stream()
+                .map(i -> chunk.get(i).getAuthorId())
+                .collect(Collectors.toSet());
+        Set<String> titles = validIndexes.stream()
+                .map(i -> chunk.get(i).getTitle())
+                .collect(Collectors.toSet());
+        Set<Long> existingAuthorIds = authorService.findExistingIds(authorIds);
+        Set<String> existingBooks = authorIds.isEmpty() ? new HashSet<>() :
+                bookRepository.findByAuthorIdInAndTitleIn(authorIds, titles).stream()
+                        .map(book -> bookKey(book.getTitle(), book.getAuthorId()))
+                        .collect(Collectors.toCollection(HashSet::new));
+
+        List<Integer> savedIndexes = new ArrayList<>();
+        List<Book> books = new ArrayList<>();
+        for (int i : validIndexes) {
+            BookDto bookDto = chunk.get(i);
+            if (!existingAuthorIds.contains(bookDto.getAuthorId())) {
+                results[i] = failure(offset + i, BatchItemStatus.AUTHOR_NOT_FOUND, format("Author with id %s not found", bookDto.getAuthorId()));
+            } else if (!existingBooks.add(bookKey(bookDto.getTitle(), bookDto.getAuthorId()))) {
+                results[i] = failure(offset + i, BatchItemStatus.DUPLICATE, format("Book with title %s and author with id %s already exists", bookDto.getTitle(), bookDto.getAuthorId()));
+            } else {
+                savedIndexes.add(i);
+                books.add(toBook(bookDto));
+            }
+        }
+
+        List<Book> savedBooks = books.isEmpty() ? List.of() : bookRepository.saveAll(books);
+        if (!savedBooks.isEmpty()) {
+            // surfaces constraint violations before the author stats are updated
+            bookRepository.flush();
+            authorService.recordBooksAdded(savedBooks);
+        }
+        List<BookView> savedViews = savedBooks.stream()
+                .map(BookView::of)
+                .collect(Collectors.toList());
+        afterCommit(() -> {
+            bookSearchIndex.addAll(savedViews);
+            bestsellerRanking.addAll(savedViews);
+        });
+        for (int i = 0; i < savedBooks.size(); i++) {
+            int index = savedIndexes.get(i);
+            results[index] = BatchItemResult.builder()
+                    .index(offset + index)
+                    .status(BatchItemStatus.CREATED)
+                    .id(savedBooks.get(i).getId())
+                    .build();
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Applies a change to the in-memory read models once the current transaction
+     * (if any) has committed, so a write that is rolled back never reaches them.
+     */
+    private static void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private static String violatedConstraintName(DataIntegrityViolationException ex) {
+        if (ex.getCause() instanceof ConstraintViolationException) {
+            String constraintName = ((ConstraintViolationException) ex.getCause()).getConstraintName();
+            if (constraintName != null) {
+                return constraintName.toUpperCase();
+            }
+        }
+        return String.valueOf(ex.getMostSpecificCause().getMessage()).toUpperCase();
+    }
+
+    private static BatchItemResult failure(int index, BatchItemStatus status, String message) {
+        return BatchItemResult.builder()
+                .index(index)
+                .status(status)
+                .message(message)
+                .build();
+    }
+
+    private static String bookKey(String title, Long authorId) {
+        return authorId + ":" + title;
     }
 
     private static Book toBook(BookDto bookDto) {
@@ -66,7 +498,7 @@ public class BookService {
                 .authorId(bookDto.getAuthorId())
                 .price(bookDto.getPrice())
                 .unitsSold(bookDto.getUnitsSold())
-                .genre(bookDto.getGenre())
+                .genre(Genre.fromDisplayName(bookDto.getGenre()))
                 .build();
     }
 }
@@ -0,0 +1,182 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.repository.CatalogSnapshotRepository;
+import com.assignment.bookservice.snapshot.CatalogSnapshotReader;
+import com.assignment.bookservice.snapshot.CatalogSnapshotWriter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CatalogSnapshotService.java
+ *
+ * Service class writing the author and book tables to a binary snapshot file
+ * and restoring an empty database from it, so an in-memory catalog survives a
+ * restart without being re-seeded through the API. Author stats are rebuilt
+ * from the restored books instead of being part of the snapshot.
+ *
+ */
+@Slf4j
+@Service
+public class CatalogSnapshotService {
+
+    public static final String ENABLED_PROPERTY = "book-service.snapshot.enabled";
+
+    static final int RESTORE_BATCH_SIZE = 10_000;
+
+    private final CatalogSnapshotRepository catalogSnapshotRepository;
+    private final AuthorService authorService;
+    private final CatalogVersion catalogVersion;
+    private final TransactionTemplate transactionTemplate;
+    private final Path snapshotPath;
+    private String snapshotCatalogVersion;
+
+    public CatalogSnapshotService(CatalogSnapshotRepository catalogSnapshotRepository, AuthorService authorService,
+                                  CatalogVersion catalogVersion, TransactionTemplate transactionTemplate,
+                                  @Value("${book-service.snapshot.path}") String snapshotPath) {
+        this.catalogSnapshotRepository = catalogSnapshotRepository;
+        this.authorService = authorService;
+        this.catalogVersion = catalogVersion;
+        this.transactionTemplate = transactionTemplate;
+        this.snapshotPath = Paths.get(snapshotPath);
+    }
+
+    /**
+     * Writes all authors and books from one consistent read to the snapshot
+     * file, replacing the previous snapshot. Skipped if the catalog has not
+     * changed since the last snapshot was written or restored. Returns whether
+     * a snapshot was written.
+     */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public synchronized boolean writeSnapshot() {
+        String version = catalogVersion.current();
+        if (version.equals(snapshotCatalogVersion)) {
+            return false;
+        }
+        long start = System.nanoTime();
+        long[] counts = new long[2];
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(snapshotPath)) {
+            catalogSnapshotRepository.forEachAuthor(unchecked(author -> {
+                writer.writeAuthor(author);
+                counts[0]++;
+            }));
+            catalogSnapshotRepository.forEachBook(unchecked(book -> {
+                writer.writeBook(book);
+                counts[1]++;
+            }));
+            writer.commit();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write catalog snapshot " + snapshotPath, ex);
+        } catch (UncheckedIOException ex) {
+            throw new UncheckedIOException("Failed to write catalog snapshot " + snapshotPath, ex.getCause());
+        }
+        snapshotCatalogVersion = version;
+        log.info("Wrote snapshot of {} authors and {} books to {} in {} ms",
+                counts[0], counts[1], snapshotPath, (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    /**
+     * Loads the snapshot file into the database, if there is a snapshot and the
+     * catalog is still empty. Returns whether it was loaded.
+     *
+     * Each batch of rows is committed on its own, as H2 gets slow committing
+     * a transaction of millions of rows. A failed restore clears the catalog
+     * again instead of leaving part of the snapshot behind.
+     */
+    public synchronized boolean restoreSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            log.info("No catalog snapshot found at {}", snapshotPath);
+            return false;
+        }
+        if (!catalogSnapshotRepository.isCatalogEmpty()) {
+            log.warn("Catalog is not empty, not restoring snapshot {}", snapshotPath);
+            return false;
+        }
+        long start = System.nanoTime();
+        long[] counts;
+        try {
+            counts = loadSnapshot();
+            authorService.rebuildAuthorStats();
+            catalogSnapshotRepository.restartIdSequences();
+        } catch (RuntimeException ex) {
+            catalogSnapshotRepository.deleteCatalog();
+            throw ex;
+        }
+        snapshotCatalogVersion = catalogVersion.current();
+        log.info("Restored {} authors and {} books from snapshot {} in {} ms",
+                counts[0], counts[1], snapshotPath, (System.nanoTime() - start) / 1_000_000);
+        return true;
+    }
+
+    private long[] loadSnapshot() {
+        List<Author> authors = new ArrayList<>(RESTORE_BATCH_SIZE);
+        List<Book> books = new ArrayList<>(RESTORE_BATCH_SIZE);
+        long[] counts = new long[2];
+        try {
+            CatalogSnapshotReader.read(snapshotPath, author -> {
+                authors.add(author);
+                counts[0]++;
+                if (authors.size() == RESTORE_BATCH_SIZE) {
+                    insertAuthors(authors);
+                }
+            }, book -> {
+                // the snapshot lists all authors first, so the last batch of them goes in before any book
+                insertAuthors(authors);
+                books.add(book);
+                counts[1]++;
+                if (books.size() == RESTORE_BATCH_SIZE) {
+                    insertBooks(books);
+                }
+            });
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to read catalog snapshot " + snapshotPath, ex);
+        }
+        insertAuthors(authors);
+        insertBooks(books);
+        return counts;
+    }
+
+    private void insertAuthors(List<Author> authors) {
+        if (!authors.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> catalogSnapshotRepository.insertAuthors(authors));
+            authors.clear();
+        }
+    }
+
+    private void insertBooks(List<Book> books) {
+        if (!books.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> catalogSnapshotRepository.insertBooks(books));
+            books.clear();
+        }
+    }
+
+    private static <T> Consumer<T> unchecked(IOConsumer<T> consumer) {
+        return value -> {
+            try {
+                consumer.accept(value);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        };
+    }
+
+    private interface IOConsumer<T> {
+
+        void accept(T value) throws IOException;
+    }
+}
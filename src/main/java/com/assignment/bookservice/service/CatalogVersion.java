@@ -0,0 +1,44 @@
+package com.assignment.bookservice.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * CatalogVersion.java
+ *
+ * Change counter of the whole catalog, used for the weak ETags of listing pages.
+ * It is incremented after the changing transaction commits and must be read
+ * before a listing is read, so a tag can be older than the listing it is sent
+ * with but never newer. The boot time is part of the version, so versions are
+ * not reused after a restart.
+ *
+ */
+@Component
+public class CatalogVersion {
+
+    private final String bootId = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+    private final AtomicLong changeCount = new AtomicLong();
+
+    public String current() {
+        return bootId + "-" + changeCount.get();
+    }
+
+    /**
+     * Records a catalog change, once the current transaction (if any) has committed.
+     */
+    public void increment() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    changeCount.incrementAndGet();
+                }
+            });
+        } else {
+            changeCount.incrementAndGet();
+        }
+    }
+}
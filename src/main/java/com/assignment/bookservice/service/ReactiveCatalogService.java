@@ -0,0 +1,105 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.ReactiveConfiguration;
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Genre;
+import com.assignment.bookservice.exception.BookNotFoundException;
+import com.assignment.bookservice.pagination.Cursor;
+import com.assignment.bookservice.pagination.CursorPage;
+import com.assignment.bookservice.repository.ReactiveCatalogRepository;
+import lombok.AllArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * ReactiveCatalogService.java
+ *
+ * Service class providing the non-blocking reads of Book and Author resources.
+ * It serves the same cursor pages as BookService and AuthorService, read
+ * directly from the database without going through their caches.
+ *
+ */
+@Service
+@AllArgsConstructor
+@ConditionalOnProperty(name = ReactiveConfiguration.ENABLED_PROPERTY, havingValue = "true")
+public class ReactiveCatalogService {
+
+    /**
+     * Books read per query while streaming the catalog.
+     */
+    static final int STREAM_PAGE_SIZE = 100;
+
+    private final ReactiveCatalogRepository reactiveCatalogRepository;
+
+    public Mono<BookView> findBook(Long id) {
+        return reactiveCatalogRepository.findBookById(id)
+                .switchIfEmpty(Mono.error(() -> new BookNotFoundException(format("Book not found with id: %s", id))));
+    }
+
+    public Mono<CursorPage<BookView>> findBooksAfter(Genre genre, String after, int limit) {
+        int pageLimit = Math.min(limit, CursorPage.MAX_LIMIT);
+        long afterId = Cursor.decode(after);
+        Flux<BookView> books = genre == null
+                ? reactiveCatalogRepository.findBooksAfter(afterId, pageLimit + 1)
+                : reactiveCatalogRepository.findBooksByGenreAfter(genre, afterId, pageLimit + 1);
+        return books.collectList()
+                .map(rows -> CursorPage.of(rows, pageLimit, BookView::getId));
+    }
+
+    /**
+     * Streams the books following the given cursor in pages of STREAM_PAGE_SIZE.
+     * Reads stay at most one page ahead of what the subscriber has consumed,
+     * so a slow client slows down the reads instead of piling up books in memory.
+     */
+    public Flux<BookView> streamBooks(String after) {
+        long afterId = Cursor.decode(after);
+        return reactiveCatalogRepository.findBooksAfter(afterId, STREAM_PAGE_SIZE)
+                .collectList()
+                .expand(page -> page.size() < STREAM_PAGE_SIZE
+                        ? Mono.empty()
+                        : reactiveCatalogRepository.findBooksAfter(page.get(page.size() - 1).getId(), STREAM_PAGE_SIZE).collectList())
+                .concatMapIterable(Function.identity(), 1);
+    }
+
+    public Mono<CursorPage<AuthorResponseDto>> findAuthorsAfter(String after, int limit, boolean includeBooks) {
+        int pageLimit = Math.min(limit, CursorPage.MAX_LIMIT);
+        long afterId = Cursor.decode(after);
+        return reactiveCatalogRepository.findAuthorsAfter(afterId, pageLimit + 1)
+                .collectList()
+                .map(rows -> CursorPage.of(rows, pageLimit, AuthorResponseDto::getId))
+                .flatMap(page -> includeBooks ? withBooks(page) : Mono.just(page));
+    }
+
+    /**
+     * Adds the books of all authors of the page, read with one query.
+     */
+    private Mono<CursorPage<AuthorResponseDto>> withBooks(CursorPage<AuthorResponseDto> page) {
+        if (page.getContent().isEmpty()) {
+            return Mono.just(page);
+        }
+        List<Long> ids = page.getContent().stream()
+                .map(AuthorResponseDto::getId)
+                .collect(Collectors.toList());
+        return reactiveCatalogRepository.findBooksByAuthorIds(ids)
+                .collect(Collectors.groupingBy(BookView::getAuthorId))
+                .map(books -> new CursorPage<>(withBooks(page.getContent(), books), page.getNextCursor()));
+    }
+
+    private static List<AuthorResponseDto> withBooks(List<AuthorResponseDto> authors, Map<Long, List<BookView>> books) {
+        return authors.stream()
+                .map(author -> author.toBuilder()
+                        .books(books.getOrDefault(author.getId(), List.of()))
+                        .build())
+                .collect(Collectors.toList());
+    }
+}
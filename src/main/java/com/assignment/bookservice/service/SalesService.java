@@ -0,0 +1,140 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.repository.BookSalesRepository;
+import com.assignment.bookservice.sales.SalesCounter;
+import com.assignment.bookservice.sales.SalesDelta;
+import com.assignment.bookservice.search.BookSearchIndex;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.assignment.bookservice.configuration.CacheConfiguration.AUTHORS_CACHE;
+import static com.assignment.bookservice.configuration.CacheConfiguration.BOOKS_CACHE;
+
+/**
+ * SalesService.java
+ *
+ * Service class recording book sales. Sales are accumulated in memory and
+ * periodically flushed to the book table and the author stats in one batched
+ * transaction, so a burst of sales of a hot title costs no database write per
+ * sale. Pending sales are flushed once more when the application shuts down.
+ *
+ */
+@Slf4j
+@Service
+@AllArgsConstructor
+public class SalesService {
+
+    private final BookService bookService;
+    private final AuthorService authorService;
+    private final BookRepository bookRepository;
+    private final BookSalesRepository bookSalesRepository;
+    private final SalesCounter salesCounter;
+    private final BookSearchIndex bookSearchIndex;
+    private final BestsellerRanking bestsellerRanking;
+    private final CatalogVersion catalogVersion;
+    private final CacheManager cacheManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public void recordSale(Long bookId, int quantity) {
+        salesCounter.record(bookService.findBook(bookId), quantity);
+    }
+
+    /**
+     * Writes the pending sales to the database. On failure they are kept for
+     * the next flush. Returns the number of books updated.
+     */
+    public synchronized int flushSales() {
+        List<SalesDelta> deltas = salesCounter.drain();
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+        List<SalesDelta> applied;
+        try {
+            applied = transactionTemplate.execute(status -> applySales(deltas));
+        } catch (RuntimeException ex) {
+            salesCounter.restore(deltas);
+            throw ex;
+        }
+        // cached views hold the units sold before the flush, so they need the
+        // flushing units added until they are evicted
+        refreshReadModels(applied);
+        salesCounter.flushed(deltas);
+        Set<Long> appliedBookIds = applied.stream()
+                .map(SalesDelta::getBookId)
+                .collect(Collectors.toSet());
+        deltas.stream()
+                .map(SalesDelta::getBookId)
+                .filter(bookId -> !appliedBookIds.contains(bookId))
+                .forEach(salesCounter::remove);
+        log.debug("Flushed sales of {} books", applied.size());
+        return applied.size();
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        try {
+            int flushed = flushSales();
+            log.info("Flushed sales of {} books on shutdown", flushed);
+        } catch (RuntimeException ex) {
+            log.error("Failed to flush pending sales on shutdown", ex);
+        }
+    }
+
+    private List<SalesDelta> applySales(List<SalesDelta> deltas) {
+        int[] updatedRows = bookSalesRepository.addUnitsSold(deltas);
+        List<SalesDelta> applied = new ArrayList<>(deltas.size());
+        for (int i = 0; i < deltas.size(); i++) {
+            // books deleted since their sales were recorded are not updated
+            if (updatedRows[i] > 0) {
+                applied.add(deltas.get(i));
+            }
+        }
+        if (!applied.isEmpty()) {
+            authorService.recordSales(applied);
+        }
+        return applied;
+    }
+
+    /**
+     * Evicts the cached books and authors of the flushed sales and re-indexes
+     * and re-ranks the books, so reads no longer rely on the pending units about
+     * to be cleared.
+     */
+    private void refreshReadModels(List<SalesDelta> applied) {
+        if (applied.isEmpty()) {
+            return;
+        }
+        List<Long> bookIds = applied.stream()
+                .map(SalesDelta::getBookId)
+                .collect(Collectors.toList());
+        Set<Long> authorIds = applied.stream()
+                .map(SalesDelta::getAuthorId)
+                .collect(Collectors.toSet());
+        Cache booksCache = cacheManager.getCache(BOOKS_CACHE);
+        Cache authorsCache = cacheManager.getCache(AUTHORS_CACHE);
+        if (booksCache != null) {
+            bookIds.forEach(booksCache::evict);
+        }
+        if (authorsCache != null) {
+            authorIds.forEach(authorsCache::evict);
+        }
+        List<BookView> books = bookRepository.findViewsByIdIn(bookIds);
+        bookSearchIndex.replaceAll(books);
+        bestsellerRanking.replaceAll(books);
+        // only once the read models are updated, so a listing tag is never newer than its listing
+        catalogVersion.increment();
+    }
+}
@@ -0,0 +1,32 @@
+package com.assignment.bookservice.snapshot;
+
+/**
+ * CatalogSnapshot.java
+ *
+ * Binary layout of a catalog snapshot. A snapshot starts with a magic number
+ * and the format version, followed by one record per author and then one per
+ * book, each starting with its record type, and ends with an end marker.
+ * Numbers are big-endian. Strings are written as their UTF-8 length and bytes,
+ * with length -1 for null. A price is written as its scale and unscaled value.
+ *
+ * author: id (long), version (long), first name, last name
+ * book:   id (long), version (long), author id (long), units sold (int),
+ *         genre code (short, -1 for none), price, title, description
+ *
+ */
+final class CatalogSnapshot {
+
+    static final int MAGIC = 0x424B534E;
+    static final short FORMAT_VERSION = 1;
+
+    static final byte AUTHOR_RECORD = 1;
+    static final byte BOOK_RECORD = 2;
+    static final byte END_MARKER = 0;
+
+    static final int NULL_LENGTH = -1;
+    static final short NO_GENRE = -1;
+    static final byte NO_PRICE = Byte.MIN_VALUE;
+
+    private CatalogSnapshot() {
+    }
+}
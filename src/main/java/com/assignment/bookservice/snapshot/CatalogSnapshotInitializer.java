@@ -0,0 +1,53 @@
+package com.assignment.bookservice.snapshot;
+
+import com.assignment.bookservice.service.CatalogSnapshotService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * CatalogSnapshotInitializer.java
+ *
+ * Restores the catalog from the snapshot file on startup. It starts in a phase
+ * below the web server's, so no request writes to the catalog or draws ids
+ * from the sequences before the restore has finished, and before the search
+ * index and the bestseller ranking are built from the restored books.
+ *
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = CatalogSnapshotService.ENABLED_PROPERTY, havingValue = "true")
+public class CatalogSnapshotInitializer implements SmartLifecycle {
+
+    /**
+     * Started well before the web server, which starts in the phase just below
+     * SmartLifecycle.DEFAULT_PHASE.
+     */
+    public static final int PHASE = SmartLifecycle.DEFAULT_PHASE - 1024;
+
+    private final CatalogSnapshotService catalogSnapshotService;
+
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        catalogSnapshotService.restoreSnapshot();
+        running = true;
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        return PHASE;
+    }
+}
@@ -0,0 +1,111 @@
+package com.assignment.bookservice.snapshot;
+
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import static com.assignment.bookservice.snapshot.CatalogSnapshot.*;
+
+/**
+ * CatalogSnapshotReader.java
+ *
+ * Reads a catalog snapshot (see CatalogSnapshot) through a read-only memory
+ * mapping of the file, so records are decoded straight from the page cache
+ * without copying the file through stream buffers. Authors are passed on
+ * before any book.
+ *
+ */
+public final class CatalogSnapshotReader {
+
+    private CatalogSnapshotReader() {
+    }
+
+    public static void read(Path path, Consumer<Author> authorConsumer, Consumer<Book> bookConsumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException(format(path, "is larger than 2 GB"));
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            readRecords(path, buffer, authorConsumer, bookConsumer);
+        }
+    }
+
+    private static void readRecords(Path path, ByteBuffer buffer,
+                                    Consumer<Author> authorConsumer, Consumer<Book> bookConsumer) throws IOException {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException(format(path, "is not a catalog snapshot"));
+            }
+            short formatVersion = buffer.getShort();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IOException(format(path, "has unsupported format version " + formatVersion));
+            }
+            byte recordType;
+            while ((recordType = buffer.get()) != END_MARKER) {
+                if (recordType == AUTHOR_RECORD) {
+                    authorConsumer.accept(readAuthor(buffer));
+                } else if (recordType == BOOK_RECORD) {
+                    bookConsumer.accept(readBook(buffer));
+                } else {
+                    throw new IOException(format(path, "has unknown record type " + recordType));
+                }
+            }
+        } catch (BufferUnderflowException ex) {
+            throw new IOException(format(path, "is truncated"), ex);
+        }
+    }
+
+    private static Author readAuthor(ByteBuffer buffer) {
+        return Author.builder()
+                .id(buffer.getLong())
+                .version(buffer.getLong())
+                .firstName(readString(buffer))
+                .lastName(readString(buffer))
+                .build();
+    }
+
+    private static Book readBook(ByteBuffer buffer) {
+        Book.BookBuilder book = Book.builder()
+                .id(buffer.getLong())
+                .version(buffer.getLong())
+                .authorId(buffer.getLong())
+                .unitsSold(buffer.getInt());
+        short genreCode = buffer.getShort();
+        return book
+                .genre(genreCode == NO_GENRE ? null : Genre.fromCode(genreCode))
+                .price(readPrice(buffer))
+                .title(readString(buffer))
+                .description(readString(buffer))
+                .build();
+    }
+
+    private static BigDecimal readPrice(ByteBuffer buffer) {
+        byte scale = buffer.get();
+        return scale == NO_PRICE ? null : BigDecimal.valueOf(buffer.getLong(), scale);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String format(Path path, String problem) {
+        return "Snapshot " + path + " " + problem;
+    }
+}
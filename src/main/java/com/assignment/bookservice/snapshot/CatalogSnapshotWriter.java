@@ -0,0 +1,111 @@
+package com.assignment.bookservice.snapshot;
+
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.Book;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+import static com.assignment.bookservice.snapshot.CatalogSnapshot.*;
+
+/**
+ * CatalogSnapshotWriter.java
+ *
+ * Writes authors and then books to a catalog snapshot (see CatalogSnapshot).
+ * The snapshot is written to a temporary file next to the target and only
+ * replaces the target on commit, so a failed or interrupted write leaves the
+ * previous snapshot intact.
+ *
+ */
+public class CatalogSnapshotWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Path target;
+    private final Path tempFile;
+    private final DataOutputStream out;
+    private boolean writingBooks;
+    private boolean committed;
+
+    public CatalogSnapshotWriter(Path target) throws IOException {
+        this.target = target;
+        Path directory = target.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        this.tempFile = Files.createTempFile(directory, target.getFileName().toString(), ".tmp");
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeShort(FORMAT_VERSION);
+    }
+
+    public void writeAuthor(Author author) throws IOException {
+        if (writingBooks) {
+            throw new IllegalStateException("Authors must be written before books");
+        }
+        out.writeByte(AUTHOR_RECORD);
+        out.writeLong(author.getId());
+        out.writeLong(author.getVersion() == null ? 0 : author.getVersion());
+        writeString(author.getFirstName());
+        writeString(author.getLastName());
+    }
+
+    public void writeBook(Book book) throws IOException {
+        writingBooks = true;
+        out.writeByte(BOOK_RECORD);
+        out.writeLong(book.getId());
+        out.writeLong(book.getVersion() == null ? 0 : book.getVersion());
+        out.writeLong(book.getAuthorId());
+        out.writeInt(book.getUnitsSold());
+        out.writeShort(book.getGenre() == null ? NO_GENRE : book.getGenre().getCode());
+        writePrice(book.getPrice());
+        writeString(book.getTitle());
+        writeString(book.getDescription());
+    }
+
+    /**
+     * Completes the snapshot and atomically replaces the target with it.
+     */
+    public void commit() throws IOException {
+        out.writeByte(END_MARKER);
+        out.close();
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        committed = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            out.close();
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void writePrice(BigDecimal price) throws IOException {
+        if (price == null) {
+            out.writeByte(NO_PRICE);
+            return;
+        }
+        // prices are stored with a scale of 2, so this only fails for corrupt data
+        if (price.scale() <= NO_PRICE || price.scale() > Byte.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported price scale " + price.scale());
+        }
+        out.writeByte(price.scale());
+        out.writeLong(price.unscaledValue().longValueExact());
+    }
+
+    private void writeString(String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
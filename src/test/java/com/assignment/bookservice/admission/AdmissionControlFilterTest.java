@@ -0,0 +1,274 @@
+package com.assignment.bookservice.admission;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.FilterChain;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionControlFilterTest {
+
+    private static final Set<String> ENDPOINTS = Set.of("GET /authors", "GET /authors/{id}", "GET /books",
+            "GET /books/{id}", "GET /books/export");
+
+    private final AtomicLong clock = new AtomicLong();
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void verifyClientOverItsRateGets429() throws Exception {
+        //given
+        AdmissionControlFilter filter = filter(new AdmissionProperties.Limits(1, 2, 100, 100, 10));
+
+        //when
+        MockHttpServletResponse first = perform(filter, request("GET", "/api/authors", "10.0.0.1"));
+        MockHttpServletResponse second = perform(filter, request("GET", "/api/authors", "10.0.0.1"));
+        MockHttpServletResponse third = perform(filter, request("GET", "/api/authors", "10.0.0.1"));
+        MockHttpServletResponse otherClient = perform(filter, request("GET", "/api/authors", "10.0.0.2"));
+
+        //then
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(third.getStatus()).isEqualTo(429);
+        assertThat(third.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(otherClient.getStatus()).isEqualTo(200);
+        assertThat(rejections("expensive", "client_rate")).isEqualTo(1);
+    }
+
+    @Test
+    void verifyCostClassOverItsSharedRateGets503() throws Exception {
+        //given
+        AdmissionControlFilter filter = filter(new AdmissionProperties.Limits(100, 100, 0.5, 1, 10));
+
+        //when
+        MockHttpServletResponse first = perform(filter, request("GET", "/api/books", "10.0.0.1"));
+        MockHttpServletResponse second = perform(filter, request("GET", "/api/books", "10.0.0.2"));
+
+        //then
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(503);
+        assertThat(second.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+        assertThat(rejections("expensive", "endpoint_rate")).isEqualTo(1);
+    }
+
+    @Test
+    void verifyEndpointsDoNotShareTheirRate() throws Exception {
+        //given
+        AdmissionControlFilter filter = filter(new AdmissionProperties.Limits(100, 100, 0.5, 1, 10));
+        perform(filter, request("GET", "/api/authors", "10.0.0.1"));
+
+        //when
+        MockHttpServletResponse authors = perform(filter, request("GET", "/api/authors", "10.0.0.2"));
+        MockHttpServletResponse books = perform(filter, request("GET", "/api/books", "10.0.0.2"));
+        MockHttpServletResponse export = perform(filter, request("GET", "/api/books/export", "10.0.0.2"));
+
+        //then
+        assertThat(authors.getStatus()).isEqualTo(503);
+        assertThat(books.getStatus()).isEqualTo(200);
+        assertThat(export.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void verifyClientKeepsItsTokensWhenEndpointIsBusy() throws Exception {
+        //given
+        AdmissionControlFilter filter = filter(new AdmissionProperties.Limits(1, 2, 0.5, 1, 10));
+        perform(filter, request("GET", "/api/books", "10.0.0.1"));
+
+        //when
+        MockHttpServletResponse first = perform(filter, request("GET", "/api/books", "10.0.0.2"));
+        MockHttpServletResponse second = perform(filter, request("GET", "/api/books", "10.0.0.2"));
+        MockHttpServletResponse third = perform(filter, request("GET", "/api/books", "10.0.0.2"));
+        MockHttpServletResponse otherEndpoint = perform(filter, request("GET", "/api/authors", "10.0.0.2"));
+
+        //then
+        assertThat(first.getStatus()).isEqualTo(503);
+        assertThat(second.getStatus()).isEqualTo(503);
+        assertThat(third.getStatus()).isEqualTo(503);
+        assertThat(otherEndpoint.getStatus()).isEqualTo(200);
+        assertThat(rejections("expensive", "client_rate")).isZero();
+    }
+
+    @Test
+    void verifyClientKeepsItsTokensWhenOverTheConcurrencyLimit() throws Exception {
+        //given
+        AdmissionControlFilter filter = filter(new AdmissionProperties.Limits(1, 1, 1, 1, 1));
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[2];
+        FilterChain slowChain = (request, response) -> {
+            nested[0] = perform(filter, request("GET", "/api/authors", "10.0.0.2"));
+            nested[1] = perform(filter, request("GET", "/api/books", "10.0.0.2"));
+        };
+
+        //when
+        filter.doFilter(request("GET", "/api/books/export", "10.0.0.1"), new MockHttpServletResponse(), slowChain);
+        MockHttpServletResponse after = perform(filter, request("GET", "/api/authors", "10.0.0.2"));
+
+        //then
+        assertThat(nested[0].getStatus()).isEqualTo(503);
+        assertThat(nested[1].getStatus()).isEqualTo(503);
+        assertThat(after.getStatus()).isEqualTo(200);
+        assertThat(rejections("expensive", "client_rate")).isZero();
+    }
+
+    @Test
+    void verifyUnmappedPathsShareOneBucket() throws Exception {
+        //given
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setCheap(new AdmissionProperties.Limits(100, 100, 0.5, 1, 10));
+        AdmissionControlFilter filter = new AdmissionControlFilter(new AdmissionController(properties, meterRegistry, clock::get), ENDPOINTS);
+        perform(filter, request("GET", "/api/unknown/1", "10.0.0.1"));
+
+        //when
+        MockHttpServletResponse otherUnmapped = perform(filter, request("GET", "/api/other/path", "10.0.0.2"));
+        MockHttpServletResponse mapped = perform(filter, request("GET", "/api/books/1", "10.0.0.2"));
+
+        //then
+        assertThat(otherUnmapped.getStatus()).isEqualTo(503);
+        assertThat(mapped.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void verifyMultiGetTakesATokenPerTenIds() throws Exception {
+        //given
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setCheap(new AdmissionProperties.Limits(1, 5, 100, 100, 10));
+        AdmissionControlFilter filter = new AdmissionControlFilter(new AdmissionController(properties, meterRegistry, clock::get), ENDPOINTS);
+        String fortyIds = LongStream.rangeClosed(1, 40).mapToObj(Long::toString).collect(Collectors.joining(","));
+
+        //when
+        MockHttpServletResponse first = perform(filter, request("GET", "/api/books", "ids=" + fortyIds, "10.0.0.1"));
+        MockHttpServletResponse second = perform(filter, request("GET", "/api/books", "ids=1,2", "10.0.0.1"));
+        MockHttpServletResponse third = perform(filter, request("GET", "/api/books", "ids=1,2", "10.0.0.1"));
+
+        //then
+        assertThat(first.getStatus()).isEqualTo(200);
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(third.getStatus()).isEqualTo(429);
+        assertThat(rejections("cheap", "client_rate")).isEqualTo(1);
+    }
+
+    @Test
+    void verifyTokensAreCountedByIds() {
+        assertThat(RequestCost.tokensOf("GET", null)).isEqualTo(1);
+        assertThat(RequestCost.tokensOf("GET", "ids=1,2,3")).isEqualTo(1);
+        assertThat(RequestCost.tokensOf("GET", "ids=1,2,3,4,5,6,7,8,9,10,11")).isEqualTo(2);
+        assertThat(RequestCost.tokensOf("GET", "ids=1%2C2%2c3&ids=4&includeBooks=false")).isEqualTo(1);
+        assertThat(RequestCost.tokensOf("DELETE", "ids=1,2,3,4,5,6,7,8,9,10,11")).isEqualTo(1);
+    }
+
+    @Test
+    void verifyEndpointsAreNormalized() {
+        assertThat(AdmissionControlFilter.endpoint("GET", "/books/12")).isEqualTo("GET /books/{id}");
+        assertThat(AdmissionControlFilter.endpoint("POST", "/books/12/sales/")).isEqualTo("POST /books/{id}/sales");
+        assertThat(AdmissionControlFilter.endpoint("GET", "/books/export")).isEqualTo("GET /books/export");
+        assertThat(AdmissionControlFilter.endpoint("GET", "/")).isEqualTo("GET /");
+        assertThat(AdmissionControlFilter.mappedEndpoint("POST", "/books/{bookId}/sales")).isEqualTo("POST /books/{id}/sales");
+        assertThat(AdmissionControlFilter.mappedEndpoint("GET", "/books/export")).isEqualTo("GET /books/export");
+    }
+
+    @Test
+    void verifyRequestsOverTheConcurrencyLimitGet503() throws Exception {
+        //given
+        AdmissionControlFilter filter = filter(new AdmissionProperties.Limits(100, 100, 100, 100, 1));
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[1];
+        FilterChain slowChain = (request, response) ->
+                nested[0] = perform(filter, request("GET", "/api/authors", "10.0.0.2"));
+
+        //when
+        MockHttpServletResponse outer = new MockHttpServletResponse();
+        filter.doFilter(request("GET", "/api/authors", "10.0.0.1"), outer, slowChain);
+        MockHttpServletResponse after = perform(filter, request("GET", "/api/authors", "10.0.0.2"));
+
+        //then
+        assertThat(outer.getStatus()).isEqualTo(200);
+        assertThat(nested[0].getStatus()).isEqualTo(503);
+        assertThat(nested[0].getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(after.getStatus()).isEqualTo(200);
+        assertThat(rejections("expensive", "concurrency")).isEqualTo(1);
+        assertThat(meterRegistry.get(AdmissionController.IN_FLIGHT_METRIC).tag("cost", "expensive").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void verifyCheapRequestsAreNotLimitedByExpensiveOnes() throws Exception {
+        //given
+        AdmissionControlFilter filter = filter(new AdmissionProperties.Limits(1, 1, 1, 1, 1));
+        perform(filter, request("GET", "/api/authors", "10.0.0.1"));
+
+        //when
+        MockHttpServletResponse expensive = perform(filter, request("GET", "/api/authors", "10.0.0.1"));
+        MockHttpServletResponse cheap = perform(filter, request("GET", "/api/authors/1", "10.0.0.1"));
+        MockHttpServletResponse actuator = perform(filter, request("GET", "/api/actuator/health", "10.0.0.1"));
+
+        //then
+        assertThat(expensive.getStatus()).isEqualTo(429);
+        assertThat(cheap.getStatus()).isEqualTo(200);
+        assertThat(actuator.getStatus()).isEqualTo(200);
+    }
+
+    @Test
+    void verifyRequestsAreClassifiedByCost() {
+        assertThat(RequestCost.of("GET", "/authors", null)).isEqualTo(RequestCost.EXPENSIVE);
+        assertThat(RequestCost.of("GET", "/books/", "page=0&pageSize=10")).isEqualTo(RequestCost.EXPENSIVE);
+        assertThat(RequestCost.of("GET", "/books", "genre=Fantasy&page=0&pageSize=10")).isEqualTo(RequestCost.EXPENSIVE);
+        assertThat(RequestCost.of("GET", "/books/export", null)).isEqualTo(RequestCost.EXPENSIVE);
+        assertThat(RequestCost.of("GET", "/reactive/books/stream", null)).isEqualTo(RequestCost.EXPENSIVE);
+        assertThat(RequestCost.of("POST", "/books/batch", null)).isEqualTo(RequestCost.EXPENSIVE);
+        assertThat(RequestCost.of("DELETE", "/books", "ids=1,2")).isEqualTo(RequestCost.EXPENSIVE);
+        assertThat(RequestCost.of("DELETE", "/authors/1", "cascade=true")).isEqualTo(RequestCost.EXPENSIVE);
+        assertThat(RequestCost.of("GET", "/books/1", null)).isEqualTo(RequestCost.CHEAP);
+        assertThat(RequestCost.of("GET", "/books", "after=MTA&limit=20")).isEqualTo(RequestCost.CHEAP);
+        assertThat(RequestCost.of("GET", "/books", "genre=Fantasy&limit=20")).isEqualTo(RequestCost.CHEAP);
+        assertThat(RequestCost.of("GET", "/authors", "includeBooks=false&limit=10")).isEqualTo(RequestCost.CHEAP);
+        assertThat(RequestCost.of("GET", "/reactive/books", null)).isEqualTo(RequestCost.CHEAP);
+        assertThat(RequestCost.of("GET", "/books", "ids=1,2,3")).isEqualTo(RequestCost.CHEAP);
+        assertThat(RequestCost.of("GET", "/authors", "includeBooks=false&ids=1")).isEqualTo(RequestCost.CHEAP);
+        assertThat(RequestCost.of("GET", "/books/search", "q=ice")).isEqualTo(RequestCost.CHEAP);
+        assertThat(RequestCost.of("POST", "/books", null)).isEqualTo(RequestCost.CHEAP);
+        assertThat(RequestCost.of("DELETE", "/authors/1", null)).isEqualTo(RequestCost.CHEAP);
+    }
+
+    private AdmissionControlFilter filter(AdmissionProperties.Limits expensiveLimits) {
+        AdmissionProperties properties = new AdmissionProperties();
+        properties.setExpensive(expensiveLimits);
+        return new AdmissionControlFilter(new AdmissionController(properties, meterRegistry, clock::get), ENDPOINTS);
+    }
+
+    private static MockHttpServletResponse perform(AdmissionControlFilter filter, MockHttpServletRequest request) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            filter.doFilter(request, response, new MockFilterChain());
+        } catch (Exception ex) {
+            throw new IllegalStateException(ex);
+        }
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String remoteAddress) {
+        return request(method, uri, null, remoteAddress);
+    }
+
+    private static MockHttpServletRequest request(String method, String uri, String query, String remoteAddress) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setContextPath("/api");
+        request.setQueryString(query);
+        request.setRemoteAddr(remoteAddress);
+        return request;
+    }
+
+    private double rejections(String cost, String reason) {
+        return meterRegistry.get(AdmissionController.REJECTIONS_METRIC)
+                .tag("cost", cost)
+                .tag("reason", reason)
+                .counter()
+                .count();
+    }
+}
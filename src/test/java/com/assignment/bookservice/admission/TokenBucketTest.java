@@ -0,0 +1,111 @@
+package com.assignment.bookservice.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenBucketTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    void verifyBurstIsAdmittedAndThenRejected() {
+        //given
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+
+        //then
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isZero();
+        assertThat(bucket.tryAcquire(0)).isEqualTo(SECOND / 2);
+    }
+
+    @Test
+    void verifySeveralTokensAreTakenAtOnce() {
+        //given
+        TokenBucket bucket = new TokenBucket(2, 5, 0);
+
+        //then
+        assertThat(bucket.tryAcquire(0, 3)).isZero();
+        assertThat(bucket.tryAcquire(0, 3)).isEqualTo(SECOND / 2);
+        assertThat(bucket.tryAcquire(0, 2)).isZero();
+        // more tokens than the burst take the whole burst once the bucket is full again
+        assertThat(bucket.tryAcquire(10 * SECOND, 50)).isZero();
+        assertThat(bucket.tryAcquire(10 * SECOND)).isPositive();
+    }
+
+    @Test
+    void verifyRefundedTokensCanBeTakenAgain() {
+        //given
+        TokenBucket bucket = new TokenBucket(2, 3, 0);
+        bucket.tryAcquire(0, 3);
+
+        //when
+        bucket.refund(2);
+
+        //then
+        assertThat(bucket.tryAcquire(0, 2)).isZero();
+        assertThat(bucket.tryAcquire(0)).isPositive();
+        // a refund never fills a bucket beyond its burst
+        bucket.refund(3);
+        bucket.refund(3);
+        assertThat(bucket.tryAcquire(0, 3)).isZero();
+        assertThat(bucket.tryAcquire(0)).isPositive();
+    }
+
+    @Test
+    void verifyTokensAreRegainedAtTheRate() {
+        //given
+        TokenBucket bucket = new TokenBucket(2, 1, 0);
+        bucket.tryAcquire(0);
+
+        //then
+        assertThat(bucket.tryAcquire(SECOND / 4)).isEqualTo(SECOND / 4);
+        assertThat(bucket.tryAcquire(SECOND / 2)).isZero();
+        assertThat(bucket.tryAcquire(SECOND / 2)).isPositive();
+        // an idle bucket fills up to its burst, not beyond
+        assertThat(bucket.tryAcquire(10 * SECOND)).isZero();
+        assertThat(bucket.tryAcquire(10 * SECOND)).isPositive();
+    }
+
+    @Test
+    void verifyConcurrentCallersTakeExactlyTheBurst() throws Exception {
+        //given
+        int threads = 8;
+        TokenBucket bucket = new TokenBucket(1, 1000, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                int admitted = 0;
+                for (int j = 0; j < 500; j++) {
+                    if (bucket.tryAcquire(0) == 0) {
+                        admitted++;
+                    }
+                }
+                return admitted;
+            }));
+        }
+        start.countDown();
+        int admitted = 0;
+        for (Future<Integer> result : results) {
+            admitted += result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        assertThat(admitted).isEqualTo(1000);
+    }
+}
@@ -0,0 +1,105 @@
+package com.assignment.bookservice.coalescing;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int CALLERS = 16;
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void verifyConcurrentCallersShareOneLoad() throws Exception {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        //when
+        List<Future<Integer>> results = callConcurrently("key", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return 42;
+        });
+        awaitWaiters();
+        release.countDown();
+
+        //then
+        for (Future<Integer> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo(42);
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    void verifyFailureIsSharedAndNotKept() throws Exception {
+        //given
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Integer>> results = callConcurrently("key", () -> {
+            await(release);
+            throw new IllegalStateException("failed");
+        });
+        awaitWaiters();
+
+        //when
+        release.countDown();
+
+        //then
+        for (Future<Integer> result : results) {
+            assertThatThrownBy(() -> result.get(10, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+        assertThat(singleFlight.load("key", () -> 7)).isEqualTo(7);
+    }
+
+    @Test
+    void verifyDifferentKeysAreLoadedSeparately() {
+        assertThat(singleFlight.load("a", () -> singleFlight.load("b", () -> 2) + 1)).isEqualTo(3);
+    }
+
+    private List<Future<Integer>> callConcurrently(String key, Supplier<Integer> loader) {
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> singleFlight.load(key, loader)));
+        }
+        return results;
+    }
+
+    /**
+     * Gives the callers time to find the load in flight before it completes.
+     */
+    private void awaitWaiters() throws InterruptedException {
+        while (singleFlight.inFlightCount() == 0) {
+            Thread.sleep(1);
+        }
+        Thread.sleep(100);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
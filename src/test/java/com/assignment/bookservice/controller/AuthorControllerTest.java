@@ -2,10 +2,17 @@ package com.assignment.bookservice.controller;
 
 import com.assignment.bookservice.configuration.SecurityConfiguration;
 import com.assignment.bookservice.dto.AuthorDto;
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookView;
 import com.assignment.bookservice.entity.Author;
 import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.exception.AuthorHasBooksException;
 import com.assignment.bookservice.exception.AuthorNotFoundException;
+import com.assignment.bookservice.response.BulkDeleteResponse;
+import com.assignment.bookservice.response.MultiGetResponse;
+import com.assignment.bookservice.sales.SalesCounter;
 import com.assignment.bookservice.service.AuthorService;
+import com.assignment.bookservice.service.BookService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +21,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -21,23 +29,38 @@ import org.springframework.test.web.servlet.MvcResult;
 import java.math.BigDecimal;
 import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AuthorController.class)
-@Import(AuthorController.class)
+@Import({AuthorController.class, SalesCounter.class})
 @ContextConfiguration(classes = SecurityConfiguration.class)
 class AuthorControllerTest {
 
     @MockBean
     private AuthorService mockAuthorService;
 
+    @MockBean
+    private BookService mockBookService;
+
+    @Autowired
+    private SalesCounter salesCounter;
+
     @Autowired
     private MockMvc mockMvc;
 
@@ -50,14 +73,89 @@ class AuthorControllerTest {
 
     @Test
     void shouldReturnAuthor() throws Exception {
-        when(mockAuthorService.findById(1L)).thenReturn(getAuthor());
+        AuthorResponseDto authorResponseDto = getAuthorResponseDto();
+        when(mockAuthorService.findById(1L)).thenReturn(authorResponseDto);
 
         MvcResult mvcResult = mockMvc.perform(get("/authors/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""))
                 .andReturn();
 
-        Author author = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), Author.class);
-        assertThat(author).isEqualTo(getAuthor());
+        AuthorResponseDto author = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), AuthorResponseDto.class);
+        assertThat(author).usingRecursiveComparison().ignoringFields("version").isEqualTo(authorResponseDto);
+    }
+
+    @Test
+    void shouldReturnAuthorsByIds() throws Exception {
+        when(mockAuthorService.findByIds(List.of(2L, 1L), false))
+                .thenReturn(MultiGetResponse.of(List.of(2L, 1L), Map.of(1L, getAuthorResponseDto())));
+
+        MvcResult mvcResult = mockMvc.perform(get("/authors")
+                        .param("ids", "2,1")
+                        .param("includeBooks", "false"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        MultiGetResponse<?> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), MultiGetResponse.class);
+        assertThat(response.getRecordCount()).isEqualTo(1);
+        assertThat(response.getMissingIds()).containsExactly(2L);
+    }
+
+    @Test
+    void shouldRejectTooManyAuthorsIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, MultiGetResponse.MAX_IDS + 1)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+
+        MvcResult mvcResult = mockMvc.perform(get("/authors")
+                        .param("ids", ids))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo("At most 1000 ids can be requested");
+        verifyNoInteractions(mockAuthorService);
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void shouldReturnAuthorWhenSaleRecordedSinceTag() throws Exception {
+        AuthorResponseDto authorResponseDto = getAuthorResponseDto();
+        when(mockAuthorService.findAuthorVersion(1L)).thenReturn(5L);
+        when(mockAuthorService.findById(1L)).thenReturn(authorResponseDto);
+        salesCounter.record(authorResponseDto.getBooks().get(0), 2);
+
+        MvcResult mvcResult = mockMvc.perform(get("/authors/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"5\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5-2\""))
+                .andReturn();
+
+        AuthorResponseDto author = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), AuthorResponseDto.class);
+        assertThat(author.getTotalUnitsSold()).isEqualTo(12);
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenAuthorVersionMatches() throws Exception {
+        when(mockAuthorService.findAuthorVersion(1L)).thenReturn(5L);
+
+        mockMvc.perform(get("/authors/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"5\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"5\""));
+
+        verify(mockAuthorService, never()).findById(any());
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenAuthorListingUnchanged() throws Exception {
+        when(mockAuthorService.getCatalogVersion()).thenReturn("boot-7");
+
+        mockMvc.perform(get("/authors")
+                        .param("limit", "10")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"boot-7\""))
+                .andExpect(status().isNotModified());
+
+        verify(mockAuthorService, never()).findAuthorsAfter(any(), anyInt(), anyBoolean());
     }
 
     @Test
@@ -102,18 +200,53 @@ class AuthorControllerTest {
 
     @Test
     void shouldDeleteAuthorWithBasicAuth() throws Exception {
-        when(mockAuthorService.findById(any()))
-                .thenReturn(Author.builder()
-                        .id(1L)
-                        .firstName("firstName")
-                        .lastName("lastName")
-                        .build());
+        String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
+
+        mockMvc.perform(delete("/authors/1")
+                        .header(HttpHeaders.AUTHORIZATION, "Basic " + encoding))
+                .andExpect(status().isNoContent());
+
+        verify(mockAuthorService).deleteAuthor(1L);
+        verify(mockAuthorService, never()).findById(any());
+    }
+
+    @Test
+    void verifyDeleteAuthorWithBooksFail_409() throws Exception {
+        doThrow(new AuthorHasBooksException("Author with id 1 still has books"))
+                .when(mockAuthorService).deleteAuthor(1L);
+        String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
+
+        mockMvc.perform(delete("/authors/1")
+                        .header(HttpHeaders.AUTHORIZATION, "Basic " + encoding))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void verifyDeleteMissingAuthorFail_404() throws Exception {
+        doThrow(new AuthorNotFoundException("Author with id 1 not found"))
+                .when(mockAuthorService).deleteAuthor(1L);
+        String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
+
+        mockMvc.perform(delete("/authors/1")
+                        .header(HttpHeaders.AUTHORIZATION, "Basic " + encoding))
+                .andExpect(status().isNotFound());
+    }
 
+    @Test
+    void shouldDeleteAuthorWithBooksOnCascade() throws Exception {
+        when(mockBookService.deleteAuthorWithBooks(1L)).thenReturn(BulkDeleteResponse.builder()
+                .deletedCount(3)
+                .missingIds(List.of())
+                .build());
         String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
 
         mockMvc.perform(delete("/authors/1")
+                        .param("cascade", "true")
                         .header(HttpHeaders.AUTHORIZATION, "Basic " + encoding))
                 .andExpect(status().isNoContent());
+
+        verify(mockBookService).deleteAuthorWithBooks(1L);
+        verify(mockAuthorService, never()).deleteAuthor(any());
     }
 
     @Test
@@ -129,6 +262,22 @@ class AuthorControllerTest {
                 .build();
     }
 
+    private AuthorResponseDto getAuthorResponseDto() {
+        Author author = getAuthor();
+        return AuthorResponseDto.builder()
+                .id(author.getId())
+                .firstName(author.getFirstName())
+                .lastName(author.getLastName())
+                .books(author.getBooks().stream()
+                        .map(BookView::of)
+                        .collect(Collectors.toList()))
+                .bookCount(1)
+                .totalUnitsSold(10)
+                .totalBookWorth(new BigDecimal("20"))
+                .version(5L)
+                .build();
+    }
+
     private Author getAuthor() {
         return Author.builder()
                 .id(1L)
@@ -2,11 +2,27 @@ package com.assignment.bookservice.controller;
 
 import com.assignment.bookservice.configuration.SecurityConfiguration;
 import com.assignment.bookservice.dto.BookDto;
-import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Genre;
 import com.assignment.bookservice.exception.AuthorNotFoundException;
 import com.assignment.bookservice.exception.BookAlreadyExistsException;
 import com.assignment.bookservice.exception.BookNotFoundException;
+import com.assignment.bookservice.exception.InvalidCursorException;
+import com.assignment.bookservice.pagination.CursorPage;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.ranking.RankingOrder;
+import com.assignment.bookservice.response.BatchItemResult;
+import com.assignment.bookservice.response.BatchItemStatus;
+import com.assignment.bookservice.response.BatchResponse;
+import com.assignment.bookservice.response.BulkDeleteResponse;
+import com.assignment.bookservice.response.CursorPaginatedResponse;
+import com.assignment.bookservice.response.MultiGetResponse;
+import com.assignment.bookservice.response.RankingResponse;
+import com.assignment.bookservice.response.SearchResponse;
+import com.assignment.bookservice.sales.SalesCounter;
+import com.assignment.bookservice.search.BookSearchIndex;
 import com.assignment.bookservice.service.BookService;
+import com.assignment.bookservice.service.SalesService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,31 +31,45 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
 import java.math.BigDecimal;
 import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookController.class)
-@Import(BookController.class)
+@Import({BookController.class, SalesCounter.class})
 @ContextConfiguration(classes = SecurityConfiguration.class)
 class BookControllerTest {
 
     @MockBean
     private BookService mockBookService;
 
+    @MockBean
+    private SalesService mockSalesService;
+
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private SalesCounter salesCounter;
+
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Test
@@ -53,10 +83,47 @@ class BookControllerTest {
 
         MvcResult mvcResult = mockMvc.perform(get("/books/1"))
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
+                .andReturn();
+
+        BookView book = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), BookView.class);
+        assertThat(book).usingRecursiveComparison().ignoringFields("version").isEqualTo(getBook());
+        verify(mockBookService, never()).findBookVersion(any());
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenBookVersionMatches() throws Exception {
+        when(mockBookService.findBookVersion(1L)).thenReturn(3L);
+
+        MvcResult mvcResult = mockMvc.perform(get("/books/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""))
                 .andReturn();
 
-        Book book = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), Book.class);
-        assertThat(book).isEqualTo(getBook());
+        assertThat(mvcResult.getResponse().getContentAsString()).isEmpty();
+        verify(mockBookService, never()).findBook(any());
+    }
+
+    @Test
+    void shouldReturnBookWhenBookVersionChanged() throws Exception {
+        when(mockBookService.findBookVersion(1L)).thenReturn(3L);
+        when(mockBookService.findBook(1L)).thenReturn(getBook());
+
+        mockMvc.perform(get("/books/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"2\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3\""));
+    }
+
+    @Test
+    void verifyConditionalGetBookFail_404() throws Exception {
+        doThrow(new BookNotFoundException("Book with id 1 not found"))
+                .when(mockBookService).findBookVersion(1L);
+
+        mockMvc.perform(get("/books/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isNotFound());
     }
 
     @Test
@@ -88,6 +155,222 @@ class BookControllerTest {
         assertThat(errorMsg).isEqualTo("Exception occurred when fetching book with id 1");
     }
 
+    @Test
+    void shouldReturnBooksAfterCursor() throws Exception {
+        when(mockBookService.findBooksAfter("cursor", 1))
+                .thenReturn(new CursorPage<>(List.of(getBook()), "next"));
+
+        MvcResult mvcResult = mockMvc.perform(get("/books")
+                        .param("after", "cursor")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        CursorPaginatedResponse<?> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), CursorPaginatedResponse.class);
+        assertThat(response.getRecordCount()).isEqualTo(1);
+        assertThat(response.getNextCursor()).isEqualTo("next");
+        verify(mockBookService, never()).findBooks(any(), any());
+    }
+
+    @Test
+    void shouldReturnBooksByIds() throws Exception {
+        when(mockBookService.findBooksByIds(List.of(3L, 1L)))
+                .thenReturn(MultiGetResponse.of(List.of(3L, 1L), Map.of(1L, getBook())));
+
+        MvcResult mvcResult = mockMvc.perform(get("/books")
+                        .param("ids", "3,1"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        MultiGetResponse<?> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), MultiGetResponse.class);
+        assertThat(response.getRecordCount()).isEqualTo(1);
+        assertThat(response.getMissingIds()).containsExactly(3L);
+        verify(mockBookService, never()).findBooks(any(), any());
+    }
+
+    @Test
+    void shouldRejectTooManyBooksIds() throws Exception {
+        String ids = LongStream.rangeClosed(1, MultiGetResponse.MAX_IDS + 1)
+                .mapToObj(Long::toString)
+                .collect(Collectors.joining(","));
+
+        MvcResult mvcResult = mockMvc.perform(get("/books")
+                        .param("ids", ids))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo("At most 1000 ids can be requested");
+        verifyNoInteractions(mockBookService);
+    }
+
+    @Test
+    void shouldTagBookListingWithCatalogVersion() throws Exception {
+        when(mockBookService.getCatalogVersion()).thenReturn("boot-7");
+        when(mockBookService.findBooksAfter(null, 1))
+                .thenReturn(new CursorPage<>(List.of(getBook()), "next"));
+
+        mockMvc.perform(get("/books")
+                        .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"boot-7\""));
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenCatalogUnchanged() throws Exception {
+        when(mockBookService.getCatalogVersion()).thenReturn("boot-7");
+
+        mockMvc.perform(get("/books")
+                        .param("page", "0")
+                        .param("pageSize", "10")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"boot-6\", W/\"boot-7\""))
+                .andExpect(status().isNotModified());
+
+        verify(mockBookService, never()).findBooks(any(), any());
+    }
+
+    @Test
+    void shouldReturnBooksOfGenre() throws Exception {
+        when(mockBookService.findBooksByGenreAfter(Genre.FANTASY, null, CursorPage.DEFAULT_LIMIT))
+                .thenReturn(new CursorPage<>(List.of(getBook()), null));
+
+        MvcResult mvcResult = mockMvc.perform(get("/books")
+                        .param("genre", "Fantasy")
+                        .param("limit", String.valueOf(CursorPage.DEFAULT_LIMIT)))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).contains("\"genre\":\"Fantasy\"");
+        verify(mockBookService, never()).findBooksAfter(any(), anyInt());
+    }
+
+    @Test
+    void verifyGetBooksWithInvalidGenreFail_400() throws Exception {
+        MvcResult mvcResult = mockMvc.perform(get("/books")
+                        .param("genre", "Cookbook")
+                        .param("page", "0")
+                        .param("pageSize", "10"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo("Invalid genre Cookbook");
+    }
+
+    @Test
+    void verifyGetBooksWithInvalidCursorFail_400() throws Exception {
+        doThrow(new InvalidCursorException("Invalid cursor abc"))
+                .when(mockBookService).findBooksAfter(any(), anyInt());
+
+        MvcResult mvcResult = mockMvc.perform(get("/books")
+                        .param("after", "abc"))
+                .andExpect(status().isBadRequest())
+                .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo("Invalid cursor abc");
+    }
+
+    @Test
+    void verifyGetBooksWithoutPaginationFail_400() throws Exception {
+        mockMvc.perform(get("/books"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldSearchBooks() throws Exception {
+        when(mockBookService.searchBooks("ice fire", BookSearchIndex.DEFAULT_LIMIT)).thenReturn(List.of(getBook()));
+
+        MvcResult mvcResult = mockMvc.perform(get("/books/search")
+                        .param("q", "ice fire"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        SearchResponse<?> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), SearchResponse.class);
+        assertThat(response.getQuery()).isEqualTo("ice fire");
+        assertThat(response.getRecordCount()).isEqualTo(1);
+    }
+
+    @Test
+    void verifySearchBooksWithBlankQueryFail_400() throws Exception {
+        mockMvc.perform(get("/books/search")
+                        .param("q", " "))
+                .andExpect(status().isBadRequest());
+
+        verify(mockBookService, never()).searchBooks(any(), anyInt());
+    }
+
+    @Test
+    void shouldReturnTopBooks() throws Exception {
+        when(mockBookService.getCatalogVersion()).thenReturn("boot-7");
+        when(mockBookService.findTopBooks(RankingOrder.REVENUE, Genre.FANTASY, 5)).thenReturn(List.of(getBook()));
+
+        MvcResult mvcResult = mockMvc.perform(get("/books/top")
+                        .param("n", "5")
+                        .param("genre", "Fantasy")
+                        .param("by", "revenue"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"boot-7\""))
+                .andReturn();
+
+        RankingResponse<?> response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), RankingResponse.class);
+        assertThat(response.getRankedBy()).isEqualTo("revenue");
+        assertThat(response.getGenre()).isEqualTo("Fantasy");
+        assertThat(response.getRecordCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldReturnTopBooksBySalesByDefault() throws Exception {
+        when(mockBookService.getCatalogVersion()).thenReturn("boot-7");
+
+        mockMvc.perform(get("/books/top"))
+                .andExpect(status().isOk());
+
+        verify(mockBookService, times(1)).findTopBooks(RankingOrder.UNITS_SOLD, null, BestsellerRanking.DEFAULT_LIMIT);
+    }
+
+    @Test
+    void verifyTopBooksWithInvalidParametersFail_400() throws Exception {
+        mockMvc.perform(get("/books/top")
+                        .param("by", "price"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/books/top")
+                        .param("genre", "Poetry"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/books/top")
+                        .param("n", "0"))
+                .andExpect(status().isBadRequest());
+
+        verify(mockBookService, never()).findTopBooks(any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldReturnNotModifiedWhenRankingUnchanged() throws Exception {
+        when(mockBookService.getCatalogVersion()).thenReturn("boot-7");
+
+        mockMvc.perform(get("/books/top")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"boot-7\""))
+                .andExpect(status().isNotModified());
+
+        verify(mockBookService, never()).findTopBooks(any(), any(), anyInt());
+    }
+
+    @Test
+    void shouldExportBooksAsNdjson() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<BookView> consumer = invocation.getArgument(0);
+            consumer.accept(getBook());
+            consumer.accept(getBook());
+            return null;
+        }).when(mockBookService).exportBooks(any());
+
+        MvcResult mvcResult = mockMvc.perform(get("/books/export"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentType()).startsWith("application/x-ndjson");
+        String[] lines = mvcResult.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[1], BookView.class)).usingRecursiveComparison().ignoringFields("version").isEqualTo(getBook());
+    }
+
     @Test
     void shouldSaveBook() throws Exception {
         mockMvc.perform(post("/books")
@@ -143,6 +426,28 @@ class BookControllerTest {
         assertThat(errorMsg).isEqualTo("Exception occurred when saving book");
     }
 
+    @Test
+    void shouldSaveBooksInBatch() throws Exception {
+        when(mockBookService.saveBooks(any())).thenReturn(BatchResponse.builder()
+                .createdCount(1)
+                .results(List.of(BatchItemResult.builder()
+                        .index(0)
+                        .status(BatchItemStatus.CREATED)
+                        .id(1L)
+                        .build()))
+                .build());
+
+        MvcResult mvcResult = mockMvc.perform(post("/books/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(getBookDto()))))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        BatchResponse batchResponse = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), BatchResponse.class);
+        assertThat(batchResponse.getCreatedCount()).isEqualTo(1);
+        verify(mockBookService, times(1)).saveBooks(List.of(getBookDto()));
+    }
+
     @Test
     void shouldDeleteABookWithBasicAuth() throws Exception {
         String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
@@ -162,7 +467,7 @@ class BookControllerTest {
     void verifyDeleteABookFail_404() throws Exception {
         //given
         doThrow(new BookNotFoundException("Book with id 1 not found"))
-                .when(mockBookService).findBook(any());
+                .when(mockBookService).deleteBook(any());
 
         String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
 
@@ -177,6 +482,161 @@ class BookControllerTest {
         assertThat(errorMsg).isEqualTo("Book with id 1 not found");
     }
 
+    @Test
+    void shouldDeleteBooksAndReportMissingIds() throws Exception {
+        //given
+        when(mockBookService.deleteBooks(List.of(1L, 2L, 3L))).thenReturn(BulkDeleteResponse.builder()
+                .deletedCount(2)
+                .missingIds(List.of(3L))
+                .build());
+        String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
+
+        //when
+        MvcResult mvcResult = mockMvc.perform(delete("/books")
+                        .param("ids", "1,2,3")
+                        .header(HttpHeaders.AUTHORIZATION, "Basic " + encoding))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        //then
+        BulkDeleteResponse response = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), BulkDeleteResponse.class);
+        assertThat(response.getDeletedCount()).isEqualTo(2);
+        assertThat(response.getMissingIds()).containsExactly(3L);
+        verify(mockBookService, never()).findBook(any());
+    }
+
+    @Test
+    void shouldDeleteBooksOfAuthor() throws Exception {
+        //given
+        when(mockBookService.deleteBooksByAuthor(1L)).thenReturn(BulkDeleteResponse.builder()
+                .deletedCount(5)
+                .missingIds(List.of())
+                .build());
+        String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
+
+        //when
+        mockMvc.perform(delete("/books")
+                        .param("authorId", "1")
+                        .header(HttpHeaders.AUTHORIZATION, "Basic " + encoding))
+                .andExpect(status().isOk());
+
+        //then
+        verify(mockBookService, times(1)).deleteBooksByAuthor(1L);
+    }
+
+    @Test
+    void verifyDeleteBooksOfMissingAuthorFail_404() throws Exception {
+        //given
+        when(mockBookService.deleteBooksByAuthor(1L)).thenThrow(new AuthorNotFoundException("Author with id 1 not found"));
+        String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
+
+        //when
+        //then
+        mockMvc.perform(delete("/books")
+                        .param("authorId", "1")
+                        .header(HttpHeaders.AUTHORIZATION, "Basic " + encoding))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void verifyDeleteBooksWithoutIdsOrAuthorFail_400() throws Exception {
+        String encoding = Base64.getEncoder().encodeToString(("admin:password").getBytes());
+
+        mockMvc.perform(delete("/books")
+                        .header(HttpHeaders.AUTHORIZATION, "Basic " + encoding))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(delete("/books")
+                        .param("ids", "1")
+                        .param("authorId", "1")
+                        .header(HttpHeaders.AUTHORIZATION, "Basic " + encoding))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(mockBookService);
+    }
+
+    @Test
+    void shouldRecordSale() throws Exception {
+        mockMvc.perform(post("/books/1/sales")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":3}"))
+                .andExpect(status().isAccepted());
+
+        verify(mockSalesService, times(1)).recordSale(1L, 3);
+    }
+
+    @Test
+    void verifyRecordSaleFail_404() throws Exception {
+        doThrow(new BookNotFoundException("Book not found with id: 1"))
+                .when(mockSalesService).recordSale(1L, 3);
+
+        MvcResult mvcResult = mockMvc.perform(post("/books/1/sales")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":3}"))
+                .andExpect(status().isNotFound())
+                .andReturn();
+
+        assertThat(mvcResult.getResponse().getContentAsString()).isEqualTo("Book not found with id: 1");
+    }
+
+    @Test
+    void verifyRecordSaleFail_400() throws Exception {
+        mockMvc.perform(post("/books/1/sales")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"quantity\":0}"))
+                .andExpect(status().isBadRequest());
+
+        verify(mockSalesService, never()).recordSale(any(), anyInt());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void shouldReturnBookWithPendingSales() throws Exception {
+        BookView book = getBook();
+        when(mockBookService.findBook(1L)).thenReturn(book);
+        salesCounter.record(book, 5);
+
+        MvcResult mvcResult = mockMvc.perform(get("/books/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-5\""))
+                .andReturn();
+
+        BookView actualBook = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), BookView.class);
+        assertThat(actualBook.getUnitsSold()).isEqualTo(15);
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void shouldReturnBookWhenSaleRecordedSinceTag() throws Exception {
+        BookView book = getBook();
+        when(mockBookService.findBookVersion(1L)).thenReturn(3L);
+        when(mockBookService.findBook(1L)).thenReturn(book);
+        salesCounter.record(book, 2);
+
+        MvcResult mvcResult = mockMvc.perform(get("/books/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"3-2\""))
+                .andReturn();
+
+        BookView actualBook = objectMapper.readValue(mvcResult.getResponse().getContentAsString(), BookView.class);
+        assertThat(actualBook.getUnitsSold()).isEqualTo(12);
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void shouldReturnBookListingWhenSaleRecordedSinceTag() throws Exception {
+        when(mockBookService.getCatalogVersion()).thenReturn("boot-7");
+        when(mockBookService.findBooksAfter(null, 1))
+                .thenReturn(new CursorPage<>(List.of(getBook()), "next"));
+        salesCounter.record(getBook(), 2);
+
+        mockMvc.perform(get("/books")
+                        .param("limit", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, "W/\"boot-7\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "W/\"boot-7-1\""));
+    }
+
     private BookDto getBookDto() {
         return BookDto.builder()
                 .title("title")
@@ -188,15 +648,16 @@ class BookControllerTest {
                 .build();
     }
 
-    private Book getBook() {
-        return Book.builder()
+    private BookView getBook() {
+        return BookView.builder()
                 .id(1L)
                 .title("title")
                 .description("desc")
                 .authorId(1L)
                 .unitsSold(10)
-                .genre("Fantasy")
+                .genre(Genre.FANTASY)
                 .price(new BigDecimal("2"))
+                .version(3L)
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,27 @@
+package com.assignment.bookservice.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GenreTest {
+
+    @Test
+    void verifyCodesAreUniqueAndRoundTrip() {
+        assertThat(Arrays.stream(Genre.values()).map(Genre::getCode).distinct()).hasSize(Genre.values().length);
+        for (Genre genre : Genre.values()) {
+            assertThat(Genre.fromCode(genre.getCode())).isEqualTo(genre);
+            assertThat(Genre.fromDisplayName(genre.getDisplayName())).isEqualTo(genre);
+        }
+    }
+
+    @Test
+    void verifyUnknownGenresAreRejected() {
+        assertThat(Genre.fromDisplayName("Cookbook")).isNull();
+        assertThat(Genre.fromDisplayName(null)).isNull();
+        assertThatThrownBy(() -> Genre.fromCode((short) 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,70 @@
+package com.assignment.bookservice.metrics;
+
+import com.assignment.bookservice.controller.BookController;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class RequestMetricsInterceptorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final RequestMetricsInterceptor interceptor = new RequestMetricsInterceptor(meterRegistry);
+
+    @Test
+    void verifyLatencyStatementsAndConnectionsAreRecordedPerHandler() throws Exception {
+        //given
+        DataSource mockDataSource = mock(DataSource.class);
+        when(mockDataSource.getConnection()).thenReturn(mock(Connection.class));
+        CountingDataSource dataSource = new CountingDataSource(mockDataSource);
+        HandlerMethod handler = new HandlerMethod(mock(BookController.class), BookController.class.getMethod("getBook", Long.class, String.class));
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        //when
+        interceptor.preHandle(request, response, handler);
+        try (Connection connection = dataSource.getConnection()) {
+            connection.prepareStatement("select 1");
+            connection.prepareStatement("select 2");
+        }
+        interceptor.afterCompletion(request, response, handler, null);
+
+        //then
+        assertThat(meterRegistry.get(RequestMetricsInterceptor.LATENCY_METRIC)
+                .tag("handler", "BookController.getBook")
+                .timer()
+                .count()).isEqualTo(1);
+        DistributionSummary statements = meterRegistry.get(RequestMetricsInterceptor.STATEMENTS_METRIC)
+                .tag("handler", "BookController.getBook")
+                .summary();
+        assertThat(statements.totalAmount()).isEqualTo(2);
+        DistributionSummary connections = meterRegistry.get(RequestMetricsInterceptor.CONNECTIONS_METRIC)
+                .tag("handler", "BookController.getBook")
+                .summary();
+        assertThat(connections.totalAmount()).isEqualTo(1);
+    }
+
+    @Test
+    void verifyNothingIsCountedOutsideRequests() throws Exception {
+        //given
+        DataSource mockDataSource = mock(DataSource.class);
+        when(mockDataSource.getConnection()).thenReturn(mock(Connection.class));
+
+        //when
+        new CountingDataSource(mockDataSource).getConnection().prepareStatement("select 1");
+
+        //then
+        assertThat(RequestStatistics.stop()).isNull();
+        assertThat(meterRegistry.getMeters()).isEmpty();
+    }
+}
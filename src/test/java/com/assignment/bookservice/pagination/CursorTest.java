@@ -0,0 +1,26 @@
+package com.assignment.bookservice.pagination;
+
+import com.assignment.bookservice.exception.InvalidCursorException;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CursorTest {
+
+    @Test
+    void verifyCursorRoundTrip() {
+        assertThat(Cursor.decode(Cursor.encode(42L))).isEqualTo(42L);
+    }
+
+    @Test
+    void verifyMissingCursorStartsFromTheBeginning() {
+        assertThat(Cursor.decode(null)).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    void verifyInvalidCursorIsRejected() {
+        assertThatThrownBy(() -> Cursor.decode("not a cursor")).isInstanceOf(InvalidCursorException.class);
+        assertThatThrownBy(() -> Cursor.decode("Zm9vOjE")).isInstanceOf(InvalidCursorException.class);
+    }
+}
@@ -0,0 +1,130 @@
+package com.assignment.bookservice.ranking;
+
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Genre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BestsellerRankingTest {
+
+    private BestsellerRanking bestsellerRanking;
+
+    @BeforeEach
+    void setUp() {
+        bestsellerRanking = new BestsellerRanking();
+        bestsellerRanking.addAll(List.of(
+                getBook(1L, Genre.FANTASY, "10.00", 50),
+                getBook(2L, Genre.FANTASY, "2.00", 100),
+                getBook(3L, Genre.HORROR, "30.00", 20),
+                getBook(4L, Genre.HORROR, "1.00", 50)));
+    }
+
+    @Test
+    void verifyBooksAreRankedByUnitsSold() {
+        //when
+        List<BookView> books = bestsellerRanking.top(RankingOrder.UNITS_SOLD, null, 3);
+
+        //then
+        assertThat(books).extracting(BookView::getId).containsExactly(2L, 1L, 4L);
+    }
+
+    @Test
+    void verifyBooksAreRankedByRevenue() {
+        //when
+        List<BookView> books = bestsellerRanking.top(RankingOrder.REVENUE, null, 10);
+
+        //then
+        assertThat(books).extracting(BookView::getId).containsExactly(3L, 1L, 2L, 4L);
+    }
+
+    @Test
+    void verifyBooksAreRankedWithinGenre() {
+        //when
+        List<BookView> books = bestsellerRanking.top(RankingOrder.UNITS_SOLD, Genre.HORROR, 10);
+        List<BookView> noBooks = bestsellerRanking.top(RankingOrder.UNITS_SOLD, Genre.ROMANCE, 10);
+
+        //then
+        assertThat(books).extracting(BookView::getId).containsExactly(4L, 3L);
+        assertThat(noBooks).isEmpty();
+    }
+
+    @Test
+    void verifyChangedBookMovesToItsNewRank() {
+        //when
+        bestsellerRanking.add(getBook(3L, Genre.HORROR, "30.00", 200));
+
+        //then
+        assertThat(bestsellerRanking.top(RankingOrder.UNITS_SOLD, null, 10)).extracting(BookView::getId).containsExactly(3L, 2L, 1L, 4L);
+        assertThat(bestsellerRanking.top(RankingOrder.UNITS_SOLD, Genre.HORROR, 10)).extracting(BookView::getId).containsExactly(3L, 4L);
+        assertThat(bestsellerRanking.size()).isEqualTo(4);
+    }
+
+    @Test
+    void verifyReAddingUnchangedBookKeepsIt() {
+        //when
+        bestsellerRanking.add(getBook(1L, Genre.FANTASY, "10.00", 50));
+
+        //then
+        assertThat(bestsellerRanking.top(RankingOrder.UNITS_SOLD, null, 10)).extracting(BookView::getId).containsExactly(2L, 1L, 4L, 3L);
+    }
+
+    @Test
+    void verifyRemovedBookIsNotRanked() {
+        //when
+        bestsellerRanking.remove(2L);
+        bestsellerRanking.replaceAll(List.of(getBook(2L, Genre.FANTASY, "2.00", 500)));
+
+        //then
+        assertThat(bestsellerRanking.top(RankingOrder.UNITS_SOLD, null, 10)).extracting(BookView::getId).containsExactly(1L, 4L, 3L);
+        assertThat(bestsellerRanking.top(RankingOrder.REVENUE, Genre.FANTASY, 10)).extracting(BookView::getId).containsExactly(1L);
+    }
+
+    @Test
+    void verifyReadersSeeEveryBookOnceWhileBooksChange() throws Exception {
+        //given
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        AtomicBoolean running = new AtomicBoolean(true);
+        Future<?> writer = executor.submit(() -> {
+            int unitsSold = 0;
+            while (running.get()) {
+                bestsellerRanking.add(getBook(1L, Genre.FANTASY, "10.00", ++unitsSold % 200));
+            }
+        });
+
+        //when
+        List<List<BookView>> reads = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            reads.add(bestsellerRanking.top(RankingOrder.UNITS_SOLD, null, 10));
+        }
+        running.set(false);
+        writer.get();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        //then
+        assertThat(reads).allSatisfy(books -> assertThat(books).extracting(BookView::getId)
+                .containsExactlyInAnyOrder(1L, 2L, 3L, 4L));
+    }
+
+    private static BookView getBook(Long id, Genre genre, String price, int unitsSold) {
+        return BookView.builder()
+                .id(id)
+                .title("Title " + id)
+                .price(new BigDecimal(price))
+                .unitsSold(unitsSold)
+                .genre(genre)
+                .authorId(1L)
+                .build();
+    }
+}
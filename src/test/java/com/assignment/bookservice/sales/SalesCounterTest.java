@@ -0,0 +1,182 @@
+package com.assignment.bookservice.sales;
+
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Genre;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SalesCounterTest {
+
+    private SalesCounter salesCounter;
+
+    @BeforeEach
+    void setUp() {
+        salesCounter = new SalesCounter();
+    }
+
+    @Test
+    void verifyPendingSalesAreAddedToBooks() {
+        //given
+        salesCounter.record(getBook(1L, 1L), 2);
+        salesCounter.record(getBook(1L, 1L), 3);
+
+        //when
+        BookView book = salesCounter.applyTo(getBook(1L, 1L));
+        BookView otherBook = getBook(2L, 1L);
+
+        //then
+        assertThat(book.getUnitsSold()).isEqualTo(15);
+        assertThat(salesCounter.applyTo(otherBook)).isSameAs(otherBook);
+    }
+
+    @Test
+    void verifyPendingSalesAreAddedToAuthorStatsAndBooks() {
+        //given
+        salesCounter.record(getBook(1L, 1L), 2);
+        salesCounter.record(getBook(2L, 1L), 1);
+        AuthorResponseDto author = AuthorResponseDto.builder()
+                .id(1L)
+                .books(List.of(getBook(1L, 1L), getBook(2L, 1L)))
+                .bookCount(2)
+                .totalUnitsSold(20)
+                .totalBookWorth(new BigDecimal("60.00"))
+                .build();
+
+        //when
+        AuthorResponseDto actualAuthor = salesCounter.applyTo(author);
+
+        //then
+        assertThat(actualAuthor.getTotalUnitsSold()).isEqualTo(23);
+        assertThat(actualAuthor.getTotalBookWorth()).isEqualByComparingTo("69.00");
+        assertThat(actualAuthor.getBooks()).extracting(BookView::getUnitsSold).containsExactly(12, 11);
+    }
+
+    @Test
+    void verifyDrainedSalesStayVisibleUntilFlushed() {
+        //given
+        salesCounter.record(getBook(1L, 1L), 4);
+
+        //when
+        List<SalesDelta> deltas = salesCounter.drain();
+
+        //then
+        assertThat(deltas).containsExactly(new SalesDelta(1L, 1L, new BigDecimal("3.00"), 4));
+        assertThat(salesCounter.pendingUnits(1L)).isEqualTo(4);
+        assertThat(salesCounter.drain()).isEmpty();
+
+        salesCounter.flushed(deltas);
+        assertThat(salesCounter.pendingUnits(1L)).isZero();
+    }
+
+    @Test
+    void verifyDrainedSalesAreOrderedByBookId() {
+        //given
+        for (long id = 20; id > 0; id--) {
+            salesCounter.record(getBook(id * 37, 1L), 1);
+        }
+
+        //when
+        List<SalesDelta> deltas = salesCounter.drain();
+
+        //then
+        assertThat(deltas).extracting(SalesDelta::getBookId).isSorted().hasSize(20);
+    }
+
+    @Test
+    void verifyRestoredSalesAreDrainedAgain() {
+        //given
+        salesCounter.record(getBook(1L, 1L), 4);
+        List<SalesDelta> deltas = salesCounter.drain();
+        salesCounter.record(getBook(1L, 1L), 1);
+
+        //when
+        salesCounter.restore(deltas);
+
+        //then
+        assertThat(salesCounter.pendingUnits(1L)).isEqualTo(5);
+        assertThat(salesCounter.drain()).extracting(SalesDelta::getUnits).containsExactly(5L);
+    }
+
+    @Test
+    void verifyRemovedBookHasNoPendingSales() {
+        //given
+        salesCounter.record(getBook(1L, 1L), 4);
+        AuthorResponseDto author = AuthorResponseDto.builder()
+                .id(1L)
+                .totalBookWorth(BigDecimal.ZERO)
+                .build();
+
+        //when
+        salesCounter.remove(1L);
+
+        //then
+        assertThat(salesCounter.pendingUnits(1L)).isZero();
+        assertThat(salesCounter.applyTo(author)).isSameAs(author);
+        assertThat(salesCounter.drain()).isEmpty();
+    }
+
+    @Test
+    void verifyNoSalesAreLostWhenDrainingConcurrently() throws Exception {
+        //given
+        int threads = 4;
+        int salesPerThread = 100_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> recorders = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            recorders.add(executor.submit(() -> {
+                start.await();
+                for (int sale = 0; sale < salesPerThread; sale++) {
+                    salesCounter.record(getBook(1L, 1L), 1);
+                }
+                return null;
+            }));
+        }
+
+        //when
+        long flushedUnits = 0;
+        start.countDown();
+        while (!recorders.stream().allMatch(Future::isDone)) {
+            flushedUnits += drainAndFlush();
+        }
+        for (Future<?> recorder : recorders) {
+            recorder.get();
+        }
+        flushedUnits += drainAndFlush();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        //then
+        assertThat(flushedUnits).isEqualTo((long) threads * salesPerThread);
+        assertThat(salesCounter.pendingUnits(1L)).isZero();
+    }
+
+    private long drainAndFlush() {
+        List<SalesDelta> deltas = salesCounter.drain();
+        salesCounter.flushed(deltas);
+        return deltas.stream().mapToLong(SalesDelta::getUnits).sum();
+    }
+
+    private static BookView getBook(Long id, Long authorId) {
+        return BookView.builder()
+                .id(id)
+                .title("Title " + id)
+                .price(new BigDecimal("3.00"))
+                .unitsSold(10)
+                .genre(Genre.FANTASY)
+                .authorId(authorId)
+                .build();
+    }
+}
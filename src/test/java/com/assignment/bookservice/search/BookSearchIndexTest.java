@@ -0,0 +1,105 @@
+package com.assignment.bookservice.search;
+
+import com.assignment.bookservice.dto.BookView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSearchIndexTest {
+
+    private BookSearchIndex bookSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        bookSearchIndex = new BookSearchIndex();
+        bookSearchIndex.addAll(List.of(
+                getBook(1L, "A Dance with Dragons", "Fifth book of A Song of Ice and Fire"),
+                getBook(2L, "A Storm of Swords", "Third book of the series, dragons appear"),
+                getBook(3L, "The Hobbit", "There and back again"),
+                getBook(4L, "Fire & Blood", "History of House Targaryen")));
+    }
+
+    @Test
+    void verifyTokenizerLowercasesAndSplitsOnPunctuation() {
+        assertThat(BookSearchIndex.tokenize("Fire & Blood: Targaryen-History")).containsExactly("fire", "blood", "targaryen", "history");
+        assertThat(BookSearchIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void verifyTitleMatchesRankAboveDescriptionMatches() {
+        //when
+        List<BookView> books = bookSearchIndex.search("dragons", 10);
+
+        //then
+        assertThat(books).extracting(BookView::getId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void verifyAllTokensMustMatch() {
+        //when
+        List<BookView> books = bookSearchIndex.search("fire ice", 10);
+
+        //then
+        assertThat(books).extracting(BookView::getId).containsExactly(1L);
+    }
+
+    @Test
+    void verifyPrefixMatchesRankBelowExactMatches() {
+        //given
+        bookSearchIndex.add(getBook(5L, "Dragonflight", "Pern"));
+        bookSearchIndex.add(getBook(6L, "Dragon", "Pern"));
+
+        //when
+        List<BookView> books = bookSearchIndex.search("drag", 10);
+        List<BookView> exactBooks = bookSearchIndex.search("dragon", 10);
+
+        //then
+        assertThat(books).extracting(BookView::getId).containsExactlyInAnyOrder(1L, 2L, 5L, 6L);
+        assertThat(exactBooks).extracting(BookView::getId).startsWith(6L);
+    }
+
+    @Test
+    void verifyResultsAreLimited() {
+        //when
+        List<BookView> books = bookSearchIndex.search("of", 2);
+
+        //then
+        assertThat(books).hasSize(2);
+    }
+
+    @Test
+    void verifyRemovedBookIsNotFound() {
+        //when
+        bookSearchIndex.remove(3L);
+
+        //then
+        assertThat(bookSearchIndex.search("hobbit", 10)).isEmpty();
+        assertThat(bookSearchIndex.size()).isEqualTo(3);
+    }
+
+    @Test
+    void verifyReindexedBookReplacesPreviousVersion() {
+        //when
+        bookSearchIndex.add(getBook(3L, "The Silmarillion", "Tales of the First Age"));
+
+        //then
+        assertThat(bookSearchIndex.search("hobbit", 10)).isEmpty();
+        assertThat(bookSearchIndex.search("silmarillion", 10)).extracting(BookView::getId).containsExactly(3L);
+    }
+
+    @Test
+    void verifyBlankQueryReturnsNothing() {
+        assertThat(bookSearchIndex.search(" - ", 10)).isEmpty();
+    }
+
+    private BookView getBook(Long id, String title, String description) {
+        return BookView.builder()
+                .id(id)
+                .title(title)
+                .description(description)
+                .build();
+    }
+}
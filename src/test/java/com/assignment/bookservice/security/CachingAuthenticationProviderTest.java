@@ -0,0 +1,85 @@
+package com.assignment.bookservice.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.provisioning.InMemoryUserDetailsManager;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CachingAuthenticationProviderTest {
+
+    private static final BCryptPasswordEncoder PASSWORD_ENCODER = new BCryptPasswordEncoder(4);
+
+    private final DaoAuthenticationProvider delegate = spy(daoAuthenticationProvider());
+
+    @Test
+    void verifyRepeatedAuthenticationSkipsTheDelegate() {
+        //given
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(1));
+
+        //when
+        Authentication first = provider.authenticate(token("admin", "password"));
+        Authentication second = provider.authenticate(token("admin", "password"));
+
+        //then
+        verify(delegate, times(1)).authenticate(any());
+        assertThat(second.isAuthenticated()).isTrue();
+        assertThat(second.getName()).isEqualTo("admin");
+        assertThat(second.getAuthorities()).isEqualTo(first.getAuthorities());
+    }
+
+    @Test
+    void verifyWrongPasswordIsCheckedEveryTime() {
+        //given
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ofMinutes(1));
+        provider.authenticate(token("admin", "password"));
+
+        //then
+        assertThatThrownBy(() -> provider.authenticate(token("admin", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        assertThatThrownBy(() -> provider.authenticate(token("admin", "wrong")))
+                .isInstanceOf(BadCredentialsException.class);
+        verify(delegate, times(3)).authenticate(any());
+    }
+
+    @Test
+    void verifyExpiredAuthenticationIsCheckedAgain() {
+        //given
+        CachingAuthenticationProvider provider = new CachingAuthenticationProvider(delegate, Duration.ZERO);
+
+        //when
+        provider.authenticate(token("admin", "password"));
+        provider.authenticate(token("admin", "password"));
+
+        //then
+        verify(delegate, times(2)).authenticate(any());
+    }
+
+    private static DaoAuthenticationProvider daoAuthenticationProvider() {
+        UserDetailsService userDetailsService = new InMemoryUserDetailsManager(User.withUsername("admin")
+                .password(PASSWORD_ENCODER.encode("password"))
+                .roles("ADMIN")
+                .build());
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(PASSWORD_ENCODER);
+        return provider;
+    }
+
+    private static UsernamePasswordAuthenticationToken token(String username, String password) {
+        return new UsernamePasswordAuthenticationToken(username, password);
+    }
+}
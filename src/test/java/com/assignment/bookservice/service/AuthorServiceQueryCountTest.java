@@ -0,0 +1,171 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.CacheConfiguration;
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
+import com.assignment.bookservice.exception.AuthorHasBooksException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({AuthorService.class, CatalogVersion.class, CacheConfiguration.class})
+class AuthorServiceQueryCountTest {
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < 50; i++) {
+            Author author = entityManager.persist(Author.builder()
+                    .firstName("firstName" + i)
+                    .lastName("lastName" + i)
+                    .build());
+            for (int j = 0; j < 3; j++) {
+                entityManager.persist(Book.builder()
+                        .title("title" + i + "-" + j)
+                        .price(new BigDecimal("2.50"))
+                        .unitsSold(4)
+                        .genre(Genre.FANTASY)
+                        .authorId(author.getId())
+                        .build());
+            }
+        }
+        entityManager.flush();
+        authorService.rebuildAuthorStats();
+        entityManager.clear();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void verifyQueryCountDoesNotGrowWithPageSize() {
+        long smallPageQueries = countQueries(5);
+        long largePageQueries = countQueries(50);
+
+        assertThat(largePageQueries).isEqualTo(smallPageQueries);
+    }
+
+    @Test
+    void verifyBooksAreLoadedForEveryAuthorInPage() {
+        statistics.clear();
+
+        Page<AuthorResponseDto> authors = authorService.findAuthors(0, 10, true);
+
+        assertThat(authors.getContent()).hasSize(10);
+        assertThat(authors.getContent())
+                .allSatisfy(author -> {
+                    assertThat(author.getBooks()).hasSize(3);
+                    assertThat(author.getTotalBookWorth()).isEqualByComparingTo("30");
+                });
+        // books are read as projections, never as entities
+        assertThat(statistics.getEntityStatistics(Book.class.getName()).getLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void verifyTotalsAreComputedWithoutLoadingBooks() {
+        statistics.clear();
+
+        Page<AuthorResponseDto> authors = authorService.findAuthors(1, 20, false);
+
+        assertThat(authors.getTotalElements()).isEqualTo(50);
+        assertThat(authors.getContent()).hasSize(20);
+        assertThat(authors.getContent())
+                .allSatisfy(author -> {
+                    assertThat(author.getBooks()).isNull();
+                    assertThat(author.getTotalBookWorth()).isEqualByComparingTo("30");
+                });
+        assertThat(statistics.getEntityStatistics(Author.class.getName()).getLoadCount()).isEqualTo(20);
+        assertThat(statistics.getEntityStatistics(Book.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    void verifyDriftedStatsAreDetectedAndRebuilt() {
+        //given
+        Long authorId = authorService.findAuthors(0, 1, false).getContent().get(0).getId();
+        entityManager.getEntityManager()
+                .createQuery("update Book b set b.unitsSold = 5 where b.authorId = :authorId")
+                .setParameter("authorId", authorId)
+                .executeUpdate();
+
+        //when
+        List<Long> inconsistentAuthorIds = authorService.findAuthorsWithInconsistentStats();
+        int rebuilt = authorService.rebuildAuthorStats();
+        entityManager.clear();
+
+        //then
+        assertThat(inconsistentAuthorIds).containsExactly(authorId);
+        assertThat(rebuilt).isEqualTo(50);
+        assertThat(authorService.findAuthorsWithInconsistentStats()).isEmpty();
+        assertThat(authorService.findById(authorId).getTotalUnitsSold()).isEqualTo(15);
+        assertThat(authorService.findById(authorId).getTotalBookWorth()).isEqualByComparingTo("37.50");
+    }
+
+    @Test
+    void verifyAuthorWithBooksIsNotDeletedWithoutLoadingBooks() {
+        //given
+        Long authorId = authorService.findAuthors(0, 1, false).getContent().get(0).getId();
+        entityManager.clear();
+        statistics.clear();
+
+        //then
+        assertThatThrownBy(() -> authorService.deleteAuthor(authorId))
+                .isInstanceOf(AuthorHasBooksException.class);
+        // a single existence query
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+    }
+
+    @Test
+    void verifyAuthorWithoutBooksIsDeletedWithoutLoadingIt() {
+        //given
+        Author author = entityManager.persist(Author.builder()
+                .firstName("firstName")
+                .lastName("lastName")
+                .build());
+        entityManager.flush();
+        entityManager.clear();
+        statistics.clear();
+
+        //when
+        authorService.deleteAuthor(author.getId());
+
+        //then
+        // the existence query and the stats and author deletes
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(entityManager.find(Author.class, author.getId())).isNull();
+    }
+
+    private long countQueries(int pageSize) {
+        entityManager.clear();
+        statistics.clear();
+        authorService.findAuthors(0, pageSize, true);
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -2,26 +2,36 @@ package com.assignment.bookservice.service;
 
 import com.assignment.bookservice.dto.AuthorDto;
 import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookView;
 import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.AuthorStats;
 import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.exception.AuthorHasBooksException;
 import com.assignment.bookservice.exception.AuthorNotFoundException;
 import com.assignment.bookservice.repository.AuthorRepository;
+import com.assignment.bookservice.repository.AuthorStatsRepository;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.response.MultiGetResponse;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,20 +40,37 @@ class AuthorServiceTest {
     @Mock
     private AuthorRepository mockAuthorRepository;
 
+    @Mock
+    private AuthorStatsRepository mockAuthorStatsRepository;
+
+    @Mock
+    private BookRepository mockBookRepository;
+
+    @Mock
+    private CatalogVersion mockCatalogVersion;
+
+    @Mock
+    private CacheManager mockCacheManager;
+
     @InjectMocks
     private AuthorService authorService;
 
     @Test
     void verifyAuthorFoundById() {
         //given
-        Author author = getAuthorById(1L);
+        Author author = getAuthors().get(0);
         when(mockAuthorRepository.findById(1L)).thenReturn(Optional.of(author));
+        when(mockBookRepository.findViewsByAuthorIdIn(List.of(1L))).thenReturn(getBookViews(List.of(author)));
+        when(mockAuthorStatsRepository.findById(1L)).thenReturn(Optional.of(getStats(1L, "50.70")));
 
         //when
-        Author actualAuthor = authorService.findById(1L);
+        AuthorResponseDto actualAuthor = authorService.findById(1L);
 
         //then
-        assertThat(actualAuthor).isEqualTo(author);
+        assertThat(actualAuthor.getFirstName()).isEqualTo("firstName1");
+        assertThat(actualAuthor.getBooks()).extracting(BookView::getId).containsExactly(1L, 2L);
+        assertThat(actualAuthor.getBookCount()).isEqualTo(2);
+        assertThat(actualAuthor.getTotalBookWorth()).isEqualTo(new BigDecimal("50.70"));
     }
 
     @Test
@@ -58,11 +85,15 @@ class AuthorServiceTest {
 
     @Test
     void verifyAuthorIsSaved() {
+        //given
+        when(mockAuthorRepository.save(any())).thenReturn(getAuthorById(1L));
+
         //when
         authorService.saveAuthor(new AuthorDto());
 
         //then
         verify(mockAuthorRepository, times(1)).save(any());
+        verify(mockAuthorStatsRepository, times(1)).save(AuthorStats.empty(1L));
     }
 
     @Test
@@ -70,9 +101,12 @@ class AuthorServiceTest {
         //given
         Page<Author> authors = new PageImpl<>(getAuthors());
         when(mockAuthorRepository.findAll(any(Pageable.class))).thenReturn(authors);
+        when(mockBookRepository.findViewsByAuthorIdIn(List.of(1L, 2L))).thenReturn(getBookViews(getAuthors()));
+        when(mockAuthorStatsRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(getStats(1L, "50.70"), getStats(2L, "279.0")));
 
         //when
-        Page<AuthorResponseDto> authorsPage = authorService.findAuthors(0, 10);
+        Page<AuthorResponseDto> authorsPage = authorService.findAuthors(0, 10, true);
 
         //then
         assertThat(authorsPage.getTotalElements()).isEqualTo(2);
@@ -92,13 +126,124 @@ class AuthorServiceTest {
         assertThat(dto2.getTotalBookWorth()).isEqualTo(new BigDecimal("279.0"));
     }
 
+    @Test
+    void verifyFindAuthorsWithoutBooks() {
+        //given
+        Page<Author> authors = new PageImpl<>(getAuthors(), PageRequest.of(0, 2), 5);
+        when(mockAuthorRepository.findAll(any(Pageable.class))).thenReturn(authors);
+        when(mockAuthorStatsRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(getStats(1L, "50.70")));
+
+        //when
+        Page<AuthorResponseDto> authorsPage = authorService.findAuthors(0, 2, false);
+
+        //then
+        assertThat(authorsPage.getTotalElements()).isEqualTo(5);
+        assertThat(authorsPage.getContent().get(0).getBooks()).isNull();
+        assertThat(authorsPage.getContent().get(0).getTotalBookWorth()).isEqualTo(new BigDecimal("50.70"));
+        assertThat(authorsPage.getContent().get(0).getBookCount()).isEqualTo(2);
+        assertThat(authorsPage.getContent().get(1).getTotalBookWorth()).isEqualTo(BigDecimal.ZERO);
+        verify(mockBookRepository, never()).findViewsByAuthorIdIn(any());
+    }
+
+    @Test
+    void verifyAuthorsAreRetrievedByIdsInRequestOrder() {
+        //given
+        when(mockAuthorRepository.findAllById(List.of(2L, 3L, 1L))).thenReturn(getAuthors());
+        when(mockAuthorStatsRepository.findAllById(List.of(1L, 2L)))
+                .thenReturn(List.of(getStats(1L, "50.70"), getStats(2L, "279.0")));
+
+        //when
+        MultiGetResponse<AuthorResponseDto> response = authorService.findByIds(List.of(2L, 3L, 1L, 2L), false);
+
+        //then
+        assertThat(response.getRecordCount()).isEqualTo(2);
+        assertThat(response.getResponse()).extracting(AuthorResponseDto::getId).containsExactly(2L, 1L);
+        assertThat(response.getResponse()).extracting(AuthorResponseDto::getBooks).containsOnlyNulls();
+        assertThat(response.getMissingIds()).containsExactly(3L);
+        verify(mockBookRepository, never()).findViewsByAuthorIdIn(any());
+    }
+
     @Test
     void verifyDeleteAuthor() {
+        //given
+        when(mockAuthorRepository.deleteAuthorById(1L)).thenReturn(1);
+
         //when
         authorService.deleteAuthor(1L);
 
         //then
-        verify(mockAuthorRepository, times(1)).deleteById(1L);
+        verify(mockBookRepository, times(1)).existsByAuthorId(1L);
+        verify(mockAuthorStatsRepository, times(1)).deleteStatsByAuthorId(1L);
+        verify(mockAuthorRepository, times(1)).deleteAuthorById(1L);
+        verify(mockAuthorRepository, never()).findById(any());
+        verify(mockCatalogVersion, times(1)).increment();
+    }
+
+    @Test
+    void verifyAuthorWithBooksIsNotDeleted() {
+        //given
+        when(mockBookRepository.existsByAuthorId(1L)).thenReturn(true);
+
+        //then
+        assertThatThrownBy(() -> authorService.deleteAuthor(1L))
+                .isInstanceOf(AuthorHasBooksException.class);
+        verify(mockAuthorRepository, never()).deleteAuthorById(any());
+        verify(mockCatalogVersion, never()).increment();
+    }
+
+    @Test
+    void verifyDeletingMissingAuthorThrows() {
+        //given
+        when(mockAuthorRepository.deleteAuthorById(1L)).thenReturn(0);
+
+        //then
+        assertThatThrownBy(() -> authorService.deleteAuthor(1L))
+                .isInstanceOf(AuthorNotFoundException.class);
+        verify(mockCatalogVersion, never()).increment();
+    }
+
+    @Test
+    void verifyStatsAreUpdatedWithOneDeltaPerAuthor() {
+        //given
+        List<Book> books = List.of(
+                getBook(1L, "2.50", 4),
+                getBook(1L, "1.00", 10),
+                getBook(2L, "3.00", 1));
+        when(mockAuthorStatsRepository.addToStats(any(), anyLong(), anyLong(), any())).thenReturn(1);
+
+        //when
+        authorService.recordBooksAdded(books);
+
+        //then
+        verify(mockAuthorStatsRepository, times(1)).addToStats(1L, 2, 14, new BigDecimal("20.00"));
+        verify(mockAuthorStatsRepository, times(1)).addToStats(2L, 1, 1, new BigDecimal("3.00"));
+        verify(mockAuthorStatsRepository, never()).save(any());
+    }
+
+    @Test
+    void verifyStatsAreDecrementedWhenBooksAreRemoved() {
+        //given
+        when(mockAuthorStatsRepository.addToStats(any(), anyLong(), anyLong(), any())).thenReturn(1);
+
+        //when
+        authorService.recordBooksRemoved(List.of(BookView.of(getBook(1L, "2.50", 4))));
+
+        //then
+        verify(mockAuthorStatsRepository, times(1)).addToStats(1L, -1, -4, new BigDecimal("-10.00"));
+    }
+
+    @Test
+    void verifyMissingStatsAreLeftToTheRebuild() {
+        //given
+        when(mockAuthorStatsRepository.addToStats(any(), anyLong(), anyLong(), any())).thenReturn(0);
+
+        //when
+        authorService.recordBooksAdded(List.of(getBook(1L, "2.50", 4)));
+
+        //then
+        verify(mockAuthorStatsRepository, times(1)).addToStats(1L, 1, 4, new BigDecimal("10.00"));
+        verify(mockAuthorStatsRepository, never()).save(any());
     }
 
     private Author getAuthorById(long authorId) {
@@ -107,6 +252,29 @@ class AuthorServiceTest {
                 .build();
     }
 
+    private AuthorStats getStats(Long authorId, String totalBookWorth) {
+        return AuthorStats.builder()
+                .authorId(authorId)
+                .bookCount(2)
+                .totalBookWorth(new BigDecimal(totalBookWorth))
+                .build();
+    }
+
+    private Book getBook(Long authorId, String price, int unitsSold) {
+        return Book.builder()
+                .authorId(authorId)
+                .price(new BigDecimal(price))
+                .unitsSold(unitsSold)
+                .build();
+    }
+
+    private List<BookView> getBookViews(List<Author> authors) {
+        return authors.stream()
+                .flatMap(author -> author.getBooks().stream())
+                .map(BookView::of)
+                .collect(Collectors.toList());
+    }
+
     private List<Author> getAuthors() {
         return List.of(
                 Author.builder()
@@ -116,11 +284,13 @@ class AuthorServiceTest {
                         .books(List.of(
                                 Book.builder()
                                         .id(1L)
+                                        .authorId(1L)
                                         .price(new BigDecimal("2.22"))
                                         .unitsSold(10)
                                         .build(),
                                 Book.builder()
                                         .id(2L)
+                                        .authorId(1L)
                                         .price(new BigDecimal("1.9"))
                                         .unitsSold(15)
                                         .build()
@@ -133,11 +303,13 @@ class AuthorServiceTest {
                         .books(List.of(
                                 Book.builder()
                                         .id(10L)
+                                        .authorId(2L)
                                         .price(new BigDecimal("9"))
                                         .unitsSold(9)
                                         .build(),
                                 Book.builder()
                                         .id(20L)
+                                        .authorId(2L)
                                         .price(new BigDecimal("9.9"))
                                         .unitsSold(20)
                                         .build()
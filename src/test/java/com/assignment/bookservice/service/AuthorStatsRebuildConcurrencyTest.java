@@ -0,0 +1,190 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.CacheConfiguration;
+import com.assignment.bookservice.dto.AuthorDto;
+import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.AuthorStats;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.repository.AuthorRepository;
+import com.assignment.bookservice.repository.AuthorStatsRepository;
+import com.assignment.bookservice.repository.CatalogSnapshotRepository;
+import com.assignment.bookservice.search.BookSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({BookService.class, AuthorService.class, BookSearchIndex.class, BestsellerRanking.class, CatalogVersion.class,
+        CacheConfiguration.class, CatalogSnapshotRepository.class, LocalValidatorFactoryBean.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class AuthorStatsRebuildConcurrencyTest {
+
+    private static final int WRITERS = 3;
+    private static final int BOOKS_PER_WRITER = 30;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private AuthorStatsRepository authorStatsRepository;
+
+    @Autowired
+    private CatalogSnapshotRepository catalogSnapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @AfterEach
+    void tearDown() {
+        catalogSnapshotRepository.deleteCatalog();
+    }
+
+    @Test
+    void verifyRebuildWaitsForUncommittedStatsUpdate() throws Exception {
+        //given
+        Author author = saveAuthor();
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when
+        Future<?> writer = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            bookService.saveBook(getBookDto(author, "title"));
+            saved.countDown();
+            await(commit);
+        }));
+        await(saved);
+        Future<Integer> rebuild = executor.submit(() -> authorService.rebuildAuthorStats());
+        Thread.sleep(200);
+        commit.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        rebuild.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //then
+        AuthorStats stats = authorStatsRepository.findById(author.getId()).orElseThrow();
+        assertThat(stats.getBookCount()).isEqualTo(1);
+        assertThat(stats.getTotalUnitsSold()).isEqualTo(10);
+        assertThat(authorService.findAuthorsWithInconsistentStats()).isEmpty();
+    }
+
+    @Test
+    void verifyStatsUpdateWaitsForUncommittedRebuild() throws Exception {
+        //given
+        Author author = saveAuthor();
+        CountDownLatch rebuilt = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        //when
+        Future<?> rebuild = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            authorService.rebuildAuthorStats();
+            rebuilt.countDown();
+            await(commit);
+        }));
+        await(rebuilt);
+        Future<?> writer = executor.submit(() -> bookService.saveBook(getBookDto(author, "title")));
+        Thread.sleep(200);
+        commit.countDown();
+        rebuild.get(10, TimeUnit.SECONDS);
+        writer.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //then
+        AuthorStats stats = authorStatsRepository.findById(author.getId()).orElseThrow();
+        assertThat(stats.getBookCount()).isEqualTo(1);
+        assertThat(stats.getTotalUnitsSold()).isEqualTo(10);
+        assertThat(authorService.findAuthorsWithInconsistentStats()).isEmpty();
+    }
+
+    @Test
+    void verifyStatsStayConsistentWhenRebuiltDuringWrites() throws Exception {
+        //given
+        List<Author> authors = List.of(saveAuthor(), saveAuthor());
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+
+        //when
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(executor.submit(() -> {
+                await(start);
+                for (int i = 0; i < BOOKS_PER_WRITER; i++) {
+                    bookService.saveBooks(List.of(
+                            getBookDto(authors.get(0), "title " + writer + "-" + i),
+                            getBookDto(authors.get(1), "title " + writer + "-" + i)));
+                }
+            }));
+        }
+        Future<?> rebuilds = executor.submit(() -> {
+            await(start);
+            while (!writers.stream().allMatch(Future::isDone)) {
+                authorService.rebuildAuthorStats();
+            }
+        });
+        start.countDown();
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        rebuilds.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //then
+        assertThat(authorService.findAuthorsWithInconsistentStats()).isEmpty();
+        for (Author author : authors) {
+            assertThat(authorStatsRepository.findById(author.getId()).orElseThrow().getBookCount())
+                    .isEqualTo(WRITERS * BOOKS_PER_WRITER);
+        }
+    }
+
+    private Author saveAuthor() {
+        return transactionTemplate.execute(status -> authorService.saveAuthor(
+                AuthorDto.builder().firstName("firstName").lastName("lastName").build()));
+    }
+
+    private static BookDto getBookDto(Author author, String title) {
+        return BookDto.builder()
+                .title(title)
+                .authorId(author.getId())
+                .price(new BigDecimal("2.50"))
+                .unitsSold(10)
+                .genre("Fantasy")
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
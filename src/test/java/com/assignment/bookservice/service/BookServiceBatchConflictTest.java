@@ -0,0 +1,127 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.CacheConfiguration;
+import com.assignment.bookservice.dto.AuthorDto;
+import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.repository.CatalogSnapshotRepository;
+import com.assignment.bookservice.response.BatchItemResult;
+import com.assignment.bookservice.response.BatchItemStatus;
+import com.assignment.bookservice.response.BatchResponse;
+import com.assignment.bookservice.search.BookSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({BookService.class, AuthorService.class, BookSearchIndex.class, BestsellerRanking.class, CatalogVersion.class,
+        CacheConfiguration.class, CatalogSnapshotRepository.class, LocalValidatorFactoryBean.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class BookServiceBatchConflictTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BestsellerRanking bestsellerRanking;
+
+    @Autowired
+    private CatalogSnapshotRepository catalogSnapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Author author;
+
+    @BeforeEach
+    void setUp() {
+        author = authorService.saveAuthor(AuthorDto.builder().firstName("firstName").lastName("lastName").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogSnapshotRepository.deleteCatalog();
+        bookSearchIndex.clear();
+        bestsellerRanking.clear();
+    }
+
+    @Test
+    void verifyBookInsertedAfterDuplicateCheckIsReportedAsDuplicate() throws Exception {
+        //given
+        CountDownLatch saved = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> writer = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+            bookService.saveBook(getBookDto("Raced Title"));
+            saved.countDown();
+            await(commit);
+        }));
+        await(saved);
+
+        //when
+        // the uncommitted book is not seen by the duplicate check and blocks the insert until it commits
+        Future<BatchResponse> batch = executor.submit(() ->
+                bookService.saveBooks(List.of(getBookDto("Other Title"), getBookDto("Raced Title"))));
+        Thread.sleep(200);
+        commit.countDown();
+        writer.get(10, TimeUnit.SECONDS);
+        BatchResponse batchResponse = batch.get(10, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //then
+        assertThat(batchResponse.getResults())
+                .extracting(BatchItemResult::getStatus)
+                .containsExactly(BatchItemStatus.CREATED, BatchItemStatus.DUPLICATE);
+        assertThat(bookRepository.count()).isEqualTo(2);
+        assertThat(authorService.findAuthorsWithInconsistentStats()).isEmpty();
+    }
+
+    private BookDto getBookDto(String title) {
+        return BookDto.builder()
+                .title(title)
+                .authorId(author.getId())
+                .price(new BigDecimal("2.50"))
+                .unitsSold(10)
+                .genre("Fantasy")
+                .build();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.CacheConfiguration;
+import com.assignment.bookservice.dto.AuthorDto;
+import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.search.BookSearchIndex;
+import com.assignment.bookservice.response.BatchResponse;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({BookService.class, AuthorService.class, BookSearchIndex.class, BestsellerRanking.class, CatalogVersion.class, CacheConfiguration.class, LocalValidatorFactoryBean.class})
+class BookServiceBatchInsertTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void verifyBatchIsInsertedWithJdbcBatching() {
+        //given
+        Author author = authorService.saveAuthor(AuthorDto.builder()
+                .firstName("firstName")
+                .lastName("lastName")
+                .build());
+        List<BookDto> bookDtos = IntStream.range(0, 200)
+                .mapToObj(i -> BookDto.builder()
+                        .title("title" + i)
+                        .price(new BigDecimal("9.99"))
+                        .unitsSold(i)
+                        .genre("Fantasy")
+                        .authorId(author.getId())
+                        .build())
+                .collect(Collectors.toList());
+        entityManager.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        BatchResponse batchResponse = bookService.saveBooks(bookDtos);
+        entityManager.flush();
+
+        //then
+        assertThat(batchResponse.getCreatedCount()).isEqualTo(200);
+        assertThat(bookRepository.count()).isEqualTo(200);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(200);
+        // two set-wise lookups, a handful of pooled sequence calls, one statement per JDBC batch
+        // and one author stats update
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(15);
+    }
+}
@@ -0,0 +1,145 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.CacheConfiguration;
+import com.assignment.bookservice.dto.AuthorDto;
+import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.AuthorStats;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.repository.AuthorStatsRepository;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.response.BulkDeleteResponse;
+import com.assignment.bookservice.search.BookSearchIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({BookService.class, AuthorService.class, BookSearchIndex.class, BestsellerRanking.class, CatalogVersion.class, CacheConfiguration.class, LocalValidatorFactoryBean.class})
+class BookServiceBulkDeleteTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorStatsRepository authorStatsRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void verifyBooksAreDeletedWithSetBasedStatements() {
+        //given
+        Author author = saveAuthor();
+        List<Long> ids = saveBooks(author, 200);
+        List<Long> idsToDelete = new ArrayList<>(ids.subList(0, 150));
+        idsToDelete.add(-1L);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        BulkDeleteResponse response = bookService.deleteBooks(idsToDelete);
+        entityManager.flush();
+
+        //then
+        assertThat(response.getDeletedCount()).isEqualTo(150);
+        assertThat(response.getMissingIds()).containsExactly(-1L);
+        assertThat(bookRepository.count()).isEqualTo(50);
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        // one locking read, one delete and the author stats and version updates, not one per book
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(10);
+        AuthorStats stats = authorStatsRepository.findById(author.getId()).orElseThrow();
+        assertThat(stats.getBookCount()).isEqualTo(50);
+    }
+
+    @Test
+    void verifyBooksOfAuthorAreDeleted() {
+        //given
+        Author author = saveAuthor();
+        Author otherAuthor = saveAuthor();
+        saveBooks(author, 20);
+        saveBooks(otherAuthor, 5);
+        entityManager.flush();
+
+        //when
+        BulkDeleteResponse response = bookService.deleteBooksByAuthor(author.getId());
+        entityManager.flush();
+
+        //then
+        assertThat(response.getDeletedCount()).isEqualTo(20);
+        assertThat(response.getMissingIds()).isEmpty();
+        assertThat(bookRepository.count()).isEqualTo(5);
+        assertThat(authorStatsRepository.findById(author.getId()).orElseThrow().getBookCount()).isZero();
+    }
+
+    @Test
+    void verifyAuthorIsDeletedWithItsBooks() {
+        //given
+        Author author = saveAuthor();
+        saveBooks(author, 300);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        BulkDeleteResponse response = bookService.deleteAuthorWithBooks(author.getId());
+        entityManager.flush();
+
+        //then
+        assertThat(response.getDeletedCount()).isEqualTo(300);
+        assertThat(bookRepository.count()).isZero();
+        assertThat(authorStatsRepository.findById(author.getId())).isEmpty();
+        assertThat(entityManager.find(Author.class, author.getId())).isNull();
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        // a handful of set-based statements, not one per book
+        assertThat(statistics.getPrepareStatementCount()).isLessThan(15);
+    }
+
+    private Author saveAuthor() {
+        return authorService.saveAuthor(AuthorDto.builder()
+                .firstName("firstName")
+                .lastName("lastName")
+                .build());
+    }
+
+    private List<Long> saveBooks(Author author, int count) {
+        List<BookDto> bookDtos = IntStream.range(0, count)
+                .mapToObj(i -> BookDto.builder()
+                        .title("title" + i)
+                        .price(new BigDecimal("9.99"))
+                        .unitsSold(i)
+                        .genre("Fantasy")
+                        .authorId(author.getId())
+                        .build())
+                .collect(Collectors.toList());
+        bookService.saveBooks(bookDtos);
+        return bookRepository.findIdsByAuthorId(author.getId());
+    }
+}
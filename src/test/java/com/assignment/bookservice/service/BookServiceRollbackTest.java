@@ -0,0 +1,119 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.CacheConfiguration;
+import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.repository.AuthorRepository;
+import com.assignment.bookservice.repository.CatalogSnapshotRepository;
+import com.assignment.bookservice.search.BookSearchIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({BookService.class, AuthorService.class, BookSearchIndex.class, BestsellerRanking.class, CatalogVersion.class,
+        CacheConfiguration.class, CatalogSnapshotRepository.class, LocalValidatorFactoryBean.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class BookServiceRollbackTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookSearchIndex bookSearchIndex;
+
+    @Autowired
+    private BestsellerRanking bestsellerRanking;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private CatalogSnapshotRepository catalogSnapshotRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Author author;
+
+    @BeforeEach
+    void setUp() {
+        author = authorRepository.save(Author.builder().firstName("firstName").lastName("lastName").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        catalogSnapshotRepository.deleteCatalog();
+        bookSearchIndex.clear();
+        bestsellerRanking.clear();
+    }
+
+    @Test
+    void verifyRolledBackSaveIsNotIndexed() {
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.saveBook(getBookDto("Rollback Saga"));
+            bookService.saveBooks(List.of(getBookDto("Rollback Chronicle")));
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(bookSearchIndex.search("rollback", BookSearchIndex.MAX_LIMIT)).isEmpty();
+        assertThat(bestsellerRanking.size()).isZero();
+    }
+
+    @Test
+    void verifyRolledBackDeleteKeepsBooksIndexed() {
+        //given
+        bookService.saveBook(getBookDto("Rollback Saga"));
+        assertThat(bookSearchIndex.search("rollback", BookSearchIndex.MAX_LIMIT)).hasSize(1);
+
+        //when
+        transactionTemplate.executeWithoutResult(status -> {
+            bookService.deleteBooksByAuthor(author.getId());
+            status.setRollbackOnly();
+        });
+
+        //then
+        assertThat(bookSearchIndex.search("rollback", BookSearchIndex.MAX_LIMIT)).hasSize(1);
+        assertThat(bestsellerRanking.size()).isEqualTo(1);
+    }
+
+    @Test
+    void verifyCommittedDeleteIsRemovedFromIndex() {
+        //given
+        bookService.saveBook(getBookDto("Rollback Saga"));
+
+        //when
+        bookService.deleteAuthorWithBooks(author.getId());
+
+        //then
+        assertThat(bookSearchIndex.search("rollback", BookSearchIndex.MAX_LIMIT)).isEmpty();
+        assertThat(bestsellerRanking.size()).isZero();
+    }
+
+    private BookDto getBookDto(String title) {
+        return BookDto.builder()
+                .title(title)
+                .authorId(author.getId())
+                .price(new BigDecimal("2.50"))
+                .unitsSold(10)
+                .genre("Fantasy")
+                .build();
+    }
+}
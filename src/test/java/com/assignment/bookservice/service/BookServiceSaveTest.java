@@ -0,0 +1,156 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.CacheConfiguration;
+import com.assignment.bookservice.dto.AuthorDto;
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
+import com.assignment.bookservice.exception.AuthorNotFoundException;
+import com.assignment.bookservice.exception.BookAlreadyExistsException;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.search.BookSearchIndex;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({BookService.class, AuthorService.class, BookSearchIndex.class, BestsellerRanking.class, CatalogVersion.class, CacheConfiguration.class, LocalValidatorFactoryBean.class})
+class BookServiceSaveTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Author author;
+
+    @BeforeEach
+    void setUp() {
+        author = authorService.saveAuthor(AuthorDto.builder()
+                .firstName("firstName")
+                .lastName("lastName")
+                .build());
+    }
+
+    @Test
+    void verifyBookIsSavedWithoutExistenceChecks() {
+        //given
+        // the pooled sequence optimizer reads the sequence twice on its first allocations
+        bookService.saveBook(getBookDto("first", author.getId()));
+        bookService.saveBook(getBookDto("second", author.getId()));
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        //when
+        bookService.saveBook(getBookDto("third", author.getId()));
+        long statementCount = statistics.getPrepareStatementCount();
+
+        //then
+        // the insert, the author stats update and the author version bump, no existence checks and no sequence call
+        assertThat(statementCount).isEqualTo(3);
+        assertThat(statistics.getEntityInsertCount()).isEqualTo(1);
+        assertThat(bookRepository.count()).isEqualTo(3);
+    }
+
+    @Test
+    void verifyDuplicateBookIsRejectedByUniqueConstraint() {
+        //given
+        bookService.saveBook(getBookDto("title", author.getId()));
+
+        //then
+        assertThatThrownBy(() -> bookService.saveBook(getBookDto("title", author.getId())))
+                .isInstanceOf(BookAlreadyExistsException.class);
+    }
+
+    @Test
+    void verifyBookOfUnknownAuthorIsRejectedByForeignKey() {
+        //then
+        assertThatThrownBy(() -> bookService.saveBook(getBookDto("title", author.getId() + 1000)))
+                .isInstanceOf(AuthorNotFoundException.class);
+    }
+
+    @Test
+    void verifyAuthorStatsAreUpdatedWithBooks() {
+        //given
+        bookService.saveBook(getBookDto("first", author.getId()));
+        bookService.saveBook(getBookDto("second", author.getId()));
+        Long firstBookId = bookRepository.findAll().get(0).getId();
+
+        //when
+        bookService.deleteBook(firstBookId);
+        entityManager.flush();
+        entityManager.clear();
+
+        //then
+        AuthorResponseDto authorResponseDto = authorService.findById(author.getId());
+        assertThat(authorResponseDto.getBookCount()).isEqualTo(1);
+        assertThat(authorResponseDto.getTotalUnitsSold()).isEqualTo(1);
+        assertThat(authorResponseDto.getTotalBookWorth()).isEqualByComparingTo("9.99");
+        assertThat(authorService.findAuthorsWithInconsistentStats()).isEmpty();
+    }
+
+    @Test
+    void verifyAuthorVersionChangesWithBooks() {
+        //given
+        entityManager.flush();
+        Long initialVersion = authorService.findAuthorVersion(author.getId());
+
+        //when
+        bookService.saveBook(getBookDto("first", author.getId()));
+        Long bookId = bookRepository.findAll().get(0).getId();
+        entityManager.clear();
+
+        //then
+        assertThat(authorService.findAuthorVersion(author.getId())).isEqualTo(initialVersion + 1);
+        assertThat(bookService.findBookVersion(bookId)).isZero();
+    }
+
+    @Test
+    void verifyGenreIsStoredAsCode() {
+        //when
+        bookService.saveBook(getBookDto("title", author.getId()));
+        entityManager.clear();
+
+        //then
+        Object code = entityManager.getEntityManager()
+                .createNativeQuery("select genre from book")
+                .getSingleResult();
+        assertThat(((Number) code).shortValue()).isEqualTo(Genre.FANTASY.getCode());
+        assertThat(bookRepository.findAll()).extracting(Book::getGenre).containsExactly(Genre.FANTASY);
+    }
+
+    private BookDto getBookDto(String title, Long authorId) {
+        return BookDto.builder()
+                .title(title)
+                .price(new BigDecimal("9.99"))
+                .unitsSold(1)
+                .genre("Fantasy")
+                .authorId(authorId)
+                .build();
+    }
+}
@@ -1,19 +1,54 @@
 package com.assignment.bookservice.service;
 
 import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.dto.BookView;
 import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
 import com.assignment.bookservice.exception.AuthorNotFoundException;
 import com.assignment.bookservice.exception.BookAlreadyExistsException;
 import com.assignment.bookservice.exception.BookNotFoundException;
+import com.assignment.bookservice.pagination.Cursor;
+import com.assignment.bookservice.pagination.CursorPage;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.ranking.RankingOrder;
 import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.response.BatchItemResult;
+import com.assignment.bookservice.response.BatchItemStatus;
+import com.assignment.bookservice.response.BatchResponse;
+import com.assignment.bookservice.response.BulkDeleteResponse;
+import com.assignment.bookservice.response.MultiGetResponse;
+import com.assignment.bookservice.search.BookSearchIndex;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.validator.internal.engine.path.PathImpl;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -29,17 +64,38 @@ class BookServiceTest {
     @Mock
     private AuthorService mockAuthorService;
 
+    @Mock
+    private Validator mockValidator;
+
+    @Mock
+    private EntityManager mockEntityManager;
+
+    @Mock
+    private BookSearchIndex mockBookSearchIndex;
+
+    @Mock
+    private BestsellerRanking mockBestsellerRanking;
+
+    @Mock
+    private CatalogVersion mockCatalogVersion;
+
+    @Mock
+    private CacheManager mockCacheManager;
+
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+
     @InjectMocks
     private BookService bookService;
 
     @Test
     void verifyBookIsReturned() {
         //given
-        Book book = getBookWithId(1L);
-        when(mockBookRepository.findById(1L)).thenReturn(Optional.of(book));
+        BookView book = getBookViewWithId(1L);
+        when(mockBookRepository.findViewById(1L)).thenReturn(Optional.of(book));
 
         //when
-        Book actualBook = bookService.findBook(1L);
+        BookView actualBook = bookService.findBook(1L);
 
         //then
         assertThat(actualBook).isEqualTo(book);
@@ -48,7 +104,7 @@ class BookServiceTest {
     @Test
     void verifyBookNotFoundExceptionIsThrown() {
         //given
-        doThrow(new BookNotFoundException("Book with id 1 not found")).when(mockBookRepository).findById(any());
+        when(mockBookRepository.findViewById(1L)).thenReturn(Optional.empty());
 
         //then
         assertThatThrownBy(() -> bookService.findBook(1L)).isInstanceOf(BookNotFoundException.class);
@@ -57,48 +113,226 @@ class BookServiceTest {
     @Test
     void verifyBookAlreadyExistExceptionIsThrown() {
         //given
-        Book book = getBookWithId(1L);
-        when(mockBookRepository.findByTitleAndAuthorId(any(), any())).thenReturn(Optional.of(book));
-
-        //when
-        assertThatThrownBy(() -> bookService.saveBook(new BookDto())).isInstanceOf(BookAlreadyExistsException.class);
+        when(mockBookRepository.saveAndFlush(any())).thenThrow(getConstraintViolation("PUBLIC.UK_BOOK_TITLE_AUTHOR_ID_INDEX_2"));
 
         //then
-        verifyNoInteractions(mockAuthorService);
-        verify(mockBookRepository, never()).save(any());
+        assertThatThrownBy(() -> bookService.saveBook(new BookDto())).isInstanceOf(BookAlreadyExistsException.class);
+        verifyNoInteractions(mockBookSearchIndex);
     }
 
     @Test
     void verifyBookIsNotSavedIfAuthorDoesntExist() {
         //given
-        when(mockBookRepository.findByTitleAndAuthorId(any(), any())).thenReturn(Optional.empty());
-        doThrow(new AuthorNotFoundException("Author with id 1 not found")).when(mockAuthorService).findById(any());
+        when(mockBookRepository.saveAndFlush(any())).thenThrow(getConstraintViolation("FK_BOOK_AUTHOR_ID: PUBLIC.BOOK FOREIGN KEY(AUTHOR_ID)"));
 
-        //when
+        //then
         assertThatThrownBy(() -> bookService.saveBook(new BookDto())).isInstanceOf(AuthorNotFoundException.class);
     }
 
     @Test
-    void verifyBookIsSaved() {
+    void verifyUnknownConstraintViolationIsRethrown() {
         //given
-        when(mockBookRepository.findByTitleAndAuthorId(any(), any())).thenReturn(Optional.empty());
+        when(mockBookRepository.saveAndFlush(any())).thenThrow(getConstraintViolation("CK_BOOK_PRICE"));
 
+        //then
+        assertThatThrownBy(() -> bookService.saveBook(new BookDto())).isInstanceOf(DataIntegrityViolationException.class);
+    }
+
+    @Test
+    void verifyBookIsSaved() {
         //when
         bookService.saveBook(BookDto.builder().title("title").description("desc").build());
 
         //then
-        verify(mockBookRepository, times(1)).findByTitleAndAuthorId(any(), any());
-        verify(mockAuthorService, times(1)).findById(any());
-        verify(mockBookRepository, times(1)).save(any());
+        verify(mockBookRepository, times(1)).saveAndFlush(any());
+        verifyNoMoreInteractions(mockBookRepository);
+        verify(mockAuthorService, times(1)).recordBooksAdded(any());
+        verifyNoMoreInteractions(mockAuthorService);
+        verify(mockBookSearchIndex, times(1)).add(any());
+        verify(mockBestsellerRanking, times(1)).add(any());
+    }
+
+    @Test
+    void verifyBatchReportsResultPerBook() {
+        //given
+        List<BookDto> bookDtos = List.of(
+                getBookDto("new", 1L),
+                getBookDto("existing", 1L),
+                getBookDto("unknown author", 2L),
+                getBookDto("new", 1L));
+        inTransaction();
+        when(mockAuthorService.findExistingIds(Set.of(1L, 2L))).thenReturn(Set.of(1L));
+        when(mockBookRepository.findByAuthorIdInAndTitleIn(any(), any()))
+                .thenReturn(List.of(Book.builder().id(5L).title("existing").authorId(1L).build()));
+        when(mockBookRepository.saveAll(any()))
+                .thenReturn(List.of(Book.builder().id(10L).title("new").authorId(1L).build()));
+
+        //when
+        BatchResponse batchResponse = bookService.saveBooks(bookDtos);
+
+        //then
+        assertThat(batchResponse.getCreatedCount()).isEqualTo(1);
+        assertThat(batchResponse.getFailedCount()).isEqualTo(3);
+        assertThat(batchResponse.getResults())
+                .extracting(BatchItemResult::getStatus)
+                .containsExactly(BatchItemStatus.CREATED, BatchItemStatus.DUPLICATE,
+                        BatchItemStatus.AUTHOR_NOT_FOUND, BatchItemStatus.DUPLICATE);
+        assertThat(batchResponse.getResults().get(0).getId()).isEqualTo(10L);
+        verify(mockBookRepository, times(1)).findByAuthorIdInAndTitleIn(any(), any());
+        verify(mockBookRepository, never()).saveAndFlush(any());
+        verify(mockAuthorService, times(1)).recordBooksAdded(List.of(Book.builder().id(10L).title("new").authorId(1L).build()));
+    }
+
+    @Test
+    void verifyBatchSkipsInvalidBooks() {
+        //given
+        BookDto invalid = getBookDto("invalid", 1L);
+        @SuppressWarnings("unchecked")
+        ConstraintViolation<BookDto> violation = mock(ConstraintViolation.class);
+        when(violation.getPropertyPath()).thenReturn(PathImpl.createPathFromString("genre"));
+        when(violation.getMessage()).thenReturn("Invalid genre");
+        when(mockValidator.validate(invalid)).thenReturn(Set.of(violation));
+        inTransaction();
+
+        //when
+        BatchResponse batchResponse = bookService.saveBooks(List.of(invalid));
+
+        //then
+        assertThat(batchResponse.getFailedCount()).isEqualTo(1);
+        assertThat(batchResponse.getResults().get(0).getStatus()).isEqualTo(BatchItemStatus.INVALID);
+        assertThat(batchResponse.getResults().get(0).getMessage()).isEqualTo("genre Invalid genre");
+        verifyNoInteractions(mockBookRepository);
+    }
+
+    @Test
+    void verifyBatchReportsBookInsertedConcurrentlyAsDuplicate() {
+        //given
+        List<BookDto> bookDtos = List.of(getBookDto("new", 1L), getBookDto("raced", 1L));
+        inTransaction();
+        when(mockAuthorService.findExistingIds(Set.of(1L))).thenReturn(Set.of(1L));
+        when(mockBookRepository.findByAuthorIdInAndTitleIn(any(), any()))
+                .thenReturn(List.of())
+                .thenReturn(List.of(Book.builder().id(5L).title("raced").authorId(1L).build()));
+        when(mockBookRepository.saveAll(any()))
+                .thenReturn(List.of(Book.builder().title("new").authorId(1L).build(), Book.builder().title("raced").authorId(1L).build()))
+                .thenReturn(List.of(Book.builder().id(10L).title("new").authorId(1L).build()));
+        doThrow(getConstraintViolation("PUBLIC.UK_BOOK_TITLE_AUTHOR_ID_INDEX_2"))
+                .doNothing()
+                .when(mockBookRepository).flush();
+
+        //when
+        BatchResponse batchResponse = bookService.saveBooks(bookDtos);
+
+        //then
+        assertThat(batchResponse.getResults())
+                .extracting(BatchItemResult::getStatus)
+                .containsExactly(BatchItemStatus.CREATED, BatchItemStatus.DUPLICATE);
+        verify(mockTransactionTemplate, times(2)).execute(any());
+        verify(mockAuthorService, times(1)).recordBooksAdded(List.of(Book.builder().id(10L).title("new").authorId(1L).build()));
+    }
+
+    @Test
+    void verifyBatchFailsAfterRepeatedConflicts() {
+        //given
+        inTransaction();
+        when(mockAuthorService.findExistingIds(Set.of(1L))).thenReturn(Set.of(1L));
+        when(mockBookRepository.saveAll(any())).thenReturn(List.of(Book.builder().title("raced").authorId(1L).build()));
+        doThrow(getConstraintViolation("PUBLIC.UK_BOOK_TITLE_AUTHOR_ID_INDEX_2")).when(mockBookRepository).flush();
+
+        //then
+        assertThatThrownBy(() -> bookService.saveBooks(List.of(getBookDto("raced", 1L))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        verify(mockTransactionTemplate, times(3)).execute(any());
+        verifyNoInteractions(mockBookSearchIndex);
     }
 
     @Test
     void verifyBookIsDeleted() {
+        //given
+        BookView book = getBookViewWithId(1L);
+        when(mockBookRepository.lockViewsByIdIn(List.of(1L))).thenReturn(List.of(book));
+
         //when
         bookService.deleteBook(1L);
 
         //then
-        verify(mockBookRepository, times(1)).deleteById(1L);
+        verify(mockBookRepository, times(1)).deleteByIdIn(List.of(1L));
+        verifyNoMoreInteractions(mockBookRepository);
+        verify(mockAuthorService, times(1)).recordBooksRemoved(List.of(book));
+        verify(mockBookSearchIndex, times(1)).remove(1L);
+        verify(mockBestsellerRanking, times(1)).remove(1L);
+    }
+
+    @Test
+    void verifyDeletingMissingBookThrows() {
+        //given
+        when(mockBookRepository.lockViewsByIdIn(List.of(1L))).thenReturn(List.of());
+
+        //then
+        assertThatThrownBy(() -> bookService.deleteBook(1L)).isInstanceOf(BookNotFoundException.class);
+        verify(mockBookRepository, never()).deleteByIdIn(any());
+        verifyNoInteractions(mockAuthorService, mockBookSearchIndex, mockBestsellerRanking);
+    }
+
+    @Test
+    void verifyBooksAreDeletedInChunksAndMissingIdsReported() {
+        //given
+        List<Long> ids = LongStream.rangeClosed(1, 1500).boxed().collect(Collectors.toList());
+        when(mockBookRepository.lockViewsByIdIn(any())).thenAnswer(invocation -> {
+            List<Long> chunk = invocation.getArgument(0);
+            return chunk.stream()
+                    .filter(id -> id % 100 != 0)
+                    .map(this::getBookViewWithId)
+                    .collect(Collectors.toList());
+        });
+
+        //when
+        BulkDeleteResponse response = bookService.deleteBooks(ids);
+
+        //then
+        assertThat(response.getDeletedCount()).isEqualTo(1485);
+        assertThat(response.getMissingIds()).hasSize(15).startsWith(100L, 200L);
+        verify(mockBookRepository, times(2)).lockViewsByIdIn(any());
+        verify(mockBookRepository, times(2)).deleteByIdIn(any());
+        verify(mockAuthorService, times(2)).recordBooksRemoved(any());
+    }
+
+    @Test
+    void verifyBooksOfMissingAuthorAreNotDeleted() {
+        //given
+        when(mockAuthorService.findExistingIds(Set.of(1L))).thenReturn(Set.of());
+
+        //then
+        assertThatThrownBy(() -> bookService.deleteBooksByAuthor(1L)).isInstanceOf(AuthorNotFoundException.class);
+        verifyNoInteractions(mockBookRepository);
+    }
+
+    @Test
+    void verifySearchLimitIsCapped() {
+        //given
+        List<BookView> books = List.of(getBookViewWithId(1L));
+        when(mockBookSearchIndex.search("title", BookSearchIndex.MAX_LIMIT)).thenReturn(books);
+
+        //when
+        List<BookView> actualBooks = bookService.searchBooks("title", 5000);
+
+        //then
+        assertThat(actualBooks).isEqualTo(books);
+        verifyNoInteractions(mockBookRepository);
+    }
+
+    @Test
+    void verifyTopBooksLimitIsCapped() {
+        //given
+        List<BookView> books = List.of(getBookViewWithId(1L));
+        when(mockBestsellerRanking.top(RankingOrder.UNITS_SOLD, null, BestsellerRanking.MAX_LIMIT)).thenReturn(books);
+
+        //when
+        List<BookView> actualBooks = bookService.findTopBooks(RankingOrder.UNITS_SOLD, null, 5000);
+
+        //then
+        assertThat(actualBooks).isEqualTo(books);
+        verifyNoInteractions(mockBookRepository);
     }
 
     @Test
@@ -107,7 +341,137 @@ class BookServiceTest {
         bookService.findBooks(1, 10);
 
         //then
-        verify(mockBookRepository, times(1)).findAll(PageRequest.of(1, 10));
+        verify(mockBookRepository, times(1)).findAllViews(PageRequest.of(1, 10));
+    }
+
+    @Test
+    void verifyBooksAreRetrievedByIdsInRequestOrder() {
+        //given
+        when(mockBookRepository.findViewsByIdIn(List.of(3L, 1L, 99L, 2L)))
+                .thenReturn(List.of(getBookViewWithId(1L), getBookViewWithId(2L), getBookViewWithId(3L)));
+
+        //when
+        MultiGetResponse<BookView> response = bookService.findBooksByIds(List.of(3L, 1L, 99L, 2L, 3L));
+
+        //then
+        assertThat(response.getRecordCount()).isEqualTo(3);
+        assertThat(response.getResponse()).extracting(BookView::getId).containsExactly(3L, 1L, 2L);
+        assertThat(response.getMissingIds()).containsExactly(99L);
+    }
+
+    @Test
+    void verifyBooksAreRetrievedByIdsInChunks() {
+        //given
+        List<Long> ids = LongStream.rangeClosed(1, 1500).boxed().collect(Collectors.toList());
+        when(mockBookRepository.findViewsByIdIn(any())).thenAnswer(invocation -> {
+            List<Long> chunk = invocation.getArgument(0);
+            return chunk.stream().map(this::getBookViewWithId).collect(Collectors.toList());
+        });
+
+        //when
+        MultiGetResponse<BookView> response = bookService.findBooksByIds(ids);
+
+        //then
+        assertThat(response.getResponse()).extracting(BookView::getId).containsExactlyElementsOf(ids);
+        assertThat(response.getMissingIds()).isEmpty();
+        verify(mockBookRepository, times(2)).findViewsByIdIn(any());
+    }
+
+    @Test
+    void verifyConcurrentIdenticalPageReadsShareOneQuery() throws Exception {
+        //given
+        CountDownLatch queryStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Page<BookView> page = new PageImpl<>(List.of(getBookViewWithId(1L)));
+        when(mockCatalogVersion.current()).thenReturn("1");
+        when(mockBookRepository.findAllViews(PageRequest.of(0, 20))).thenAnswer(invocation -> {
+            queryStarted.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return page;
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Page<BookView>>> results = new ArrayList<>();
+
+        //when
+        for (int i = 0; i < 8; i++) {
+            results.add(executor.submit(() -> bookService.findBooks(0, 20)));
+        }
+        queryStarted.await(10, TimeUnit.SECONDS);
+        Thread.sleep(100);
+        release.countDown();
+
+        //then
+        for (Future<Page<BookView>> result : results) {
+            assertThat(result.get(10, TimeUnit.SECONDS)).isSameAs(page);
+        }
+        executor.shutdown();
+        verify(mockBookRepository, times(1)).findAllViews(PageRequest.of(0, 20));
+    }
+
+    @Test
+    void verifyBooksAreRetrievedAfterCursor() {
+        //given
+        when(mockBookRepository.findViewsAfter(5L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(getBookViewWithId(6L), getBookViewWithId(7L), getBookViewWithId(8L)));
+
+        //when
+        CursorPage<BookView> books = bookService.findBooksAfter(Cursor.encode(5L), 2);
+
+        //then
+        assertThat(books.getContent()).extracting(BookView::getId).containsExactly(6L, 7L);
+        assertThat(Cursor.decode(books.getNextCursor())).isEqualTo(7L);
+        verify(mockBookRepository, never()).count();
+    }
+
+    @Test
+    void verifyBooksAreRetrievedByGenreAfterCursor() {
+        //given
+        when(mockBookRepository.findViewsByGenreAfter(Genre.HORROR, 5L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(getBookViewWithId(6L)));
+
+        //when
+        CursorPage<BookView> books = bookService.findBooksByGenreAfter(Genre.HORROR, Cursor.encode(5L), 2);
+
+        //then
+        assertThat(books.getContent()).extracting(BookView::getId).containsExactly(6L);
+        assertThat(books.getNextCursor()).isNull();
+    }
+
+    @Test
+    void verifyLastCursorPageHasNoNextCursor() {
+        //given
+        when(mockBookRepository.findViewsAfter(Long.MIN_VALUE, PageRequest.of(0, 3)))
+                .thenReturn(List.of(getBookViewWithId(1L)));
+
+        //when
+        CursorPage<BookView> books = bookService.findBooksAfter(null, 2);
+
+        //then
+        assertThat(books.getContent()).hasSize(1);
+        assertThat(books.getNextCursor()).isNull();
+    }
+
+    @Test
+    void verifyBooksAreExportedAsViews() {
+        //given
+        BookView book1 = getBookViewWithId(1L);
+        BookView book2 = getBookViewWithId(2L);
+        when(mockBookRepository.streamAllViews()).thenReturn(Stream.of(book1, book2));
+        List<BookView> exported = new ArrayList<>();
+
+        //when
+        bookService.exportBooks(exported::add);
+
+        //then
+        assertThat(exported).containsExactly(book1, book2);
+        verifyNoInteractions(mockEntityManager);
+    }
+
+    private BookDto getBookDto(String title, Long authorId) {
+        return BookDto.builder()
+                .title(title)
+                .authorId(authorId)
+                .build();
     }
 
     private Book getBookWithId(Long id) {
@@ -117,4 +481,19 @@ class BookServiceTest {
                 .description("desc")
                 .build();
     }
-}
\ No newline at end of file
+
+    private BookView getBookViewWithId(Long id) {
+        return BookView.of(getBookWithId(id));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void inTransaction() {
+        when(mockTransactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+    }
+
+    private static DataIntegrityViolationException getConstraintViolation(String constraintName) {
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", new SQLException(), constraintName));
+    }
+}
@@ -0,0 +1,173 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.CacheConfiguration;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.AuthorStats;
+import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
+import com.assignment.bookservice.repository.AuthorRepository;
+import com.assignment.bookservice.repository.AuthorStatsRepository;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.repository.CatalogSnapshotRepository;
+import com.assignment.bookservice.snapshot.CatalogSnapshotWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = "book-service.snapshot.path=" + CatalogSnapshotServiceTest.SNAPSHOT_PATH)
+@Import({CatalogSnapshotService.class, CatalogSnapshotRepository.class, AuthorService.class, CatalogVersion.class, CacheConfiguration.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DirtiesContext
+class CatalogSnapshotServiceTest {
+
+    static final String SNAPSHOT_PATH = "target/snapshot-test/catalog.snapshot";
+
+    private static final int MILLION = 1_000_000;
+    private static final Duration MAX_MILLION_BOOK_RESTORE_TIME = Duration.ofSeconds(60);
+
+    @Autowired
+    private CatalogSnapshotService catalogSnapshotService;
+
+    @Autowired
+    private AuthorRepository authorRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private AuthorStatsRepository authorStatsRepository;
+
+    @Autowired
+    private CatalogSnapshotRepository catalogSnapshotRepository;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        catalogSnapshotRepository.deleteCatalog();
+        Files.deleteIfExists(Paths.get(SNAPSHOT_PATH));
+    }
+
+    @Test
+    void verifyCatalogIsRestoredFromItsSnapshot() {
+        //given
+        Author author = authorRepository.save(Author.builder().firstName("firstName").lastName("lastName").build());
+        bookRepository.saveAll(List.of(
+                getBook("title1", author.getId(), Genre.FANTASY),
+                getBook("title2", author.getId(), null)));
+        List<Author> authors = authorRepository.findAll();
+        List<Book> books = bookRepository.findAll();
+
+        //when
+        boolean written = catalogSnapshotService.writeSnapshot();
+        catalogSnapshotRepository.deleteCatalog();
+        boolean restored = catalogSnapshotService.restoreSnapshot();
+
+        //then
+        assertThat(written).isTrue();
+        assertThat(restored).isTrue();
+        assertThat(authorRepository.findAll()).usingRecursiveFieldByFieldElementComparatorIgnoringFields("books", "version")
+                .containsExactlyElementsOf(authors);
+        assertThat(bookRepository.findAll()).containsExactlyInAnyOrderElementsOf(books);
+        AuthorStats stats = authorStatsRepository.findById(author.getId()).orElseThrow();
+        assertThat(stats.getBookCount()).isEqualTo(2);
+        assertThat(stats.getTotalUnitsSold()).isEqualTo(20);
+        assertThat(stats.getTotalBookWorth()).isEqualByComparingTo("50.00");
+        Book newBook = bookRepository.save(getBook("title3", author.getId(), Genre.HORROR));
+        assertThat(newBook.getId()).isGreaterThan(books.stream().mapToLong(Book::getId).max().orElseThrow());
+    }
+
+    @Test
+    void verifyUnchangedCatalogIsNotWrittenAgain() {
+        //given
+        authorRepository.save(Author.builder().firstName("firstName").lastName("lastName").build());
+        catalogSnapshotService.writeSnapshot();
+
+        //then
+        assertThat(catalogSnapshotService.writeSnapshot()).isFalse();
+    }
+
+    @Test
+    void verifyNonEmptyCatalogIsNotOverwritten() throws IOException {
+        //given
+        writeSnapshot(1, 10);
+        authorRepository.save(Author.builder().firstName("firstName").lastName("lastName").build());
+
+        //when
+        boolean restored = catalogSnapshotService.restoreSnapshot();
+
+        //then
+        assertThat(restored).isFalse();
+        assertThat(authorRepository.count()).isEqualTo(1);
+        assertThat(bookRepository.count()).isZero();
+    }
+
+    @Test
+    void verifyMissingSnapshotIsNotRestored() {
+        assertThat(catalogSnapshotService.restoreSnapshot()).isFalse();
+    }
+
+    @Test
+    @Tag("slow")
+    void verifyMillionBookSnapshotIsRestoredInTime() throws IOException {
+        //given
+        writeSnapshot(MILLION / 100, MILLION);
+
+        //when
+        long start = System.nanoTime();
+        boolean restored = catalogSnapshotService.restoreSnapshot();
+        Duration restoreTime = Duration.ofNanos(System.nanoTime() - start);
+
+        //then
+        assertThat(restored).isTrue();
+        assertThat(restoreTime).isLessThan(MAX_MILLION_BOOK_RESTORE_TIME);
+        assertThat(bookRepository.count()).isEqualTo(MILLION);
+        assertThat(authorStatsRepository.findById(1L).orElseThrow().getBookCount()).isEqualTo(100);
+    }
+
+    private static void writeSnapshot(int authorCount, int bookCount) throws IOException {
+        Path path = Paths.get(SNAPSHOT_PATH);
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(path)) {
+            for (long id = 1; id <= authorCount; id++) {
+                writer.writeAuthor(Author.builder().id(id).version(0L).firstName("first" + id).lastName("last" + id).build());
+            }
+            for (long id = 1; id <= bookCount; id++) {
+                writer.writeBook(Book.builder()
+                        .id(id)
+                        .version(0L)
+                        .authorId(id % authorCount + 1)
+                        .unitsSold((int) (id % 1000))
+                        .genre(Genre.fromCode((short) (id % 7 + 1)))
+                        .price(BigDecimal.valueOf(id % 5000, 2))
+                        .title("Title " + id)
+                        .description("Description of book " + id)
+                        .build());
+            }
+            writer.commit();
+        }
+    }
+
+    private static Book getBook(String title, Long authorId, Genre genre) {
+        return Book.builder()
+                .title(title)
+                .price(new BigDecimal("2.50"))
+                .unitsSold(10)
+                .genre(genre)
+                .authorId(authorId)
+                .build();
+    }
+}
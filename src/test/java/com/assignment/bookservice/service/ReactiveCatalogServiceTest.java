@@ -0,0 +1,175 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Genre;
+import com.assignment.bookservice.exception.BookNotFoundException;
+import com.assignment.bookservice.pagination.Cursor;
+import com.assignment.bookservice.pagination.CursorPage;
+import com.assignment.bookservice.repository.ReactiveCatalogRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.assignment.bookservice.service.ReactiveCatalogService.STREAM_PAGE_SIZE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveCatalogServiceTest {
+
+    @Mock
+    private ReactiveCatalogRepository mockReactiveCatalogRepository;
+
+    @InjectMocks
+    private ReactiveCatalogService reactiveCatalogService;
+
+    @Test
+    void verifyBookIsReturned() {
+        //given
+        BookView book = getBookView(1L, 1L);
+        when(mockReactiveCatalogRepository.findBookById(1L)).thenReturn(Mono.just(book));
+
+        //when
+        BookView actualBook = reactiveCatalogService.findBook(1L).block();
+
+        //then
+        assertThat(actualBook).isEqualTo(book);
+    }
+
+    @Test
+    void verifyBookNotFoundExceptionIsSignalled() {
+        //given
+        when(mockReactiveCatalogRepository.findBookById(1L)).thenReturn(Mono.empty());
+
+        //when
+        //then
+        assertThatThrownBy(() -> reactiveCatalogService.findBook(1L).block())
+                .isInstanceOf(BookNotFoundException.class)
+                .hasMessage("Book not found with id: 1");
+    }
+
+    @Test
+    void verifyBooksAfterCursorReturnNextCursorWhenMoreRemain() {
+        //given
+        when(mockReactiveCatalogRepository.findBooksByGenreAfter(Genre.HORROR, 5L, 3))
+                .thenReturn(Flux.fromIterable(getBookViews(6, 8)));
+
+        //when
+        CursorPage<BookView> page = reactiveCatalogService.findBooksAfter(Genre.HORROR, Cursor.encode(5L), 2).block();
+
+        //then
+        assertThat(page.getContent()).extracting(BookView::getId).containsExactly(6L, 7L);
+        assertThat(Cursor.decode(page.getNextCursor())).isEqualTo(7L);
+        verify(mockReactiveCatalogRepository, never()).findBooksAfter(anyLong(), anyInt());
+    }
+
+    @Test
+    void verifyStreamReadsAtMostOnePageAhead() {
+        //given
+        when(mockReactiveCatalogRepository.findBooksAfter(Long.MIN_VALUE, STREAM_PAGE_SIZE))
+                .thenReturn(Flux.fromIterable(getBookViews(1, STREAM_PAGE_SIZE)));
+        when(mockReactiveCatalogRepository.findBooksAfter(STREAM_PAGE_SIZE, STREAM_PAGE_SIZE))
+                .thenReturn(Flux.fromIterable(getBookViews(STREAM_PAGE_SIZE + 1, 2 * STREAM_PAGE_SIZE)));
+
+        //when
+        List<BookView> books = reactiveCatalogService.streamBooks(null)
+                .take(STREAM_PAGE_SIZE)
+                .collectList()
+                .block();
+
+        //then
+        assertThat(books).hasSize(STREAM_PAGE_SIZE);
+        verify(mockReactiveCatalogRepository, never()).findBooksAfter(2L * STREAM_PAGE_SIZE, STREAM_PAGE_SIZE);
+    }
+
+    @Test
+    void verifyStreamPagesThroughAllBooks() {
+        //given
+        when(mockReactiveCatalogRepository.findBooksAfter(Long.MIN_VALUE, STREAM_PAGE_SIZE))
+                .thenReturn(Flux.fromIterable(getBookViews(1, STREAM_PAGE_SIZE)));
+        when(mockReactiveCatalogRepository.findBooksAfter(STREAM_PAGE_SIZE, STREAM_PAGE_SIZE))
+                .thenReturn(Flux.fromIterable(getBookViews(STREAM_PAGE_SIZE + 1, STREAM_PAGE_SIZE + 10)));
+
+        //when
+        List<BookView> books = reactiveCatalogService.streamBooks(null)
+                .collectList()
+                .block();
+
+        //then
+        assertThat(books).extracting(BookView::getId)
+                .containsExactlyElementsOf(LongStream.rangeClosed(1, STREAM_PAGE_SIZE + 10).boxed().collect(Collectors.toList()));
+        verify(mockReactiveCatalogRepository, times(2)).findBooksAfter(anyLong(), anyInt());
+    }
+
+    @Test
+    void verifyAuthorsAreReturnedWithTheirBooks() {
+        //given
+        when(mockReactiveCatalogRepository.findAuthorsAfter(Long.MIN_VALUE, 11))
+                .thenReturn(Flux.just(getAuthor(1L), getAuthor(2L)));
+        when(mockReactiveCatalogRepository.findBooksByAuthorIds(List.of(1L, 2L)))
+                .thenReturn(Flux.just(getBookView(1L, 1L), getBookView(2L, 1L)));
+
+        //when
+        CursorPage<AuthorResponseDto> page = reactiveCatalogService.findAuthorsAfter(null, 10, true).block();
+
+        //then
+        assertThat(page.getNextCursor()).isNull();
+        assertThat(page.getContent().get(0).getBooks()).extracting(BookView::getId).containsExactly(1L, 2L);
+        assertThat(page.getContent().get(1).getBooks()).isEmpty();
+    }
+
+    @Test
+    void verifyAuthorsAreReturnedWithoutBooks() {
+        //given
+        when(mockReactiveCatalogRepository.findAuthorsAfter(Long.MIN_VALUE, 11))
+                .thenReturn(Flux.just(getAuthor(1L)));
+
+        //when
+        CursorPage<AuthorResponseDto> page = reactiveCatalogService.findAuthorsAfter(null, 10, false).block();
+
+        //then
+        assertThat(page.getContent().get(0).getBooks()).isNull();
+        verify(mockReactiveCatalogRepository, never()).findBooksByAuthorIds(any());
+    }
+
+    private static List<BookView> getBookViews(long fromId, long toId) {
+        return LongStream.rangeClosed(fromId, toId)
+                .mapToObj(id -> getBookView(id, 1L))
+                .collect(Collectors.toList());
+    }
+
+    private static BookView getBookView(Long id, Long authorId) {
+        return BookView.builder()
+                .id(id)
+                .title("Title " + id)
+                .price(BigDecimal.TEN)
+                .genre(Genre.HORROR)
+                .authorId(authorId)
+                .version(0L)
+                .build();
+    }
+
+    private static AuthorResponseDto getAuthor(Long id) {
+        return AuthorResponseDto.builder()
+                .id(id)
+                .firstName("First")
+                .lastName("Last")
+                .totalBookWorth(BigDecimal.ZERO)
+                .version(0L)
+                .build();
+    }
+}
@@ -0,0 +1,209 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Genre;
+import com.assignment.bookservice.exception.BookNotFoundException;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.repository.BookSalesRepository;
+import com.assignment.bookservice.sales.SalesCounter;
+import com.assignment.bookservice.sales.SalesDelta;
+import com.assignment.bookservice.search.BookSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.assignment.bookservice.configuration.CacheConfiguration.AUTHORS_CACHE;
+import static com.assignment.bookservice.configuration.CacheConfiguration.BOOKS_CACHE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class SalesServiceTest {
+
+    @Mock
+    private BookService mockBookService;
+
+    @Mock
+    private AuthorService mockAuthorService;
+
+    @Mock
+    private BookRepository mockBookRepository;
+
+    @Mock
+    private BookSalesRepository mockBookSalesRepository;
+
+    @Mock
+    private BookSearchIndex mockBookSearchIndex;
+
+    @Mock
+    private BestsellerRanking mockBestsellerRanking;
+
+    @Mock
+    private CatalogVersion mockCatalogVersion;
+
+    @Mock
+    private CacheManager mockCacheManager;
+
+    @Mock
+    private TransactionTemplate mockTransactionTemplate;
+
+    @Mock
+    private Cache mockBooksCache;
+
+    @Mock
+    private Cache mockAuthorsCache;
+
+    private final SalesCounter salesCounter = new SalesCounter();
+
+    private SalesService salesService;
+
+    @BeforeEach
+    void setUp() {
+        salesService = new SalesService(mockBookService, mockAuthorService, mockBookRepository, mockBookSalesRepository,
+                salesCounter, mockBookSearchIndex, mockBestsellerRanking, mockCatalogVersion, mockCacheManager, mockTransactionTemplate);
+    }
+
+    @Test
+    void verifySaleIsRecorded() {
+        //given
+        when(mockBookService.findBook(1L)).thenReturn(getBook(1L));
+
+        //when
+        salesService.recordSale(1L, 3);
+
+        //then
+        assertThat(salesCounter.pendingUnits(1L)).isEqualTo(3);
+        verifyNoInteractions(mockBookSalesRepository);
+    }
+
+    @Test
+    void verifySaleOfMissingBookIsRejected() {
+        //given
+        when(mockBookService.findBook(1L)).thenThrow(new BookNotFoundException("Book not found with id: 1"));
+
+        //when
+        //then
+        assertThatThrownBy(() -> salesService.recordSale(1L, 3))
+                .isInstanceOf(BookNotFoundException.class);
+        assertThat(salesCounter.pendingUnits(1L)).isZero();
+    }
+
+    @Test
+    void verifyPendingSalesAreFlushedInOneBatch() {
+        //given
+        inTransaction();
+        salesCounter.record(getBook(1L), 3);
+        salesCounter.record(getBook(2L), 1);
+        when(mockBookSalesRepository.addUnitsSold(any())).thenReturn(new int[]{1, 1});
+        when(mockCacheManager.getCache(BOOKS_CACHE)).thenReturn(mockBooksCache);
+        when(mockCacheManager.getCache(AUTHORS_CACHE)).thenReturn(mockAuthorsCache);
+
+        //when
+        int flushed = salesService.flushSales();
+
+        //then
+        assertThat(flushed).isEqualTo(2);
+        assertThat(salesCounter.pendingUnits(1L)).isZero();
+        verify(mockBookSalesRepository, times(1)).addUnitsSold(any());
+        verify(mockAuthorService, times(1)).recordSales(List.of(
+                new SalesDelta(1L, 1L, BigDecimal.TEN, 3), new SalesDelta(2L, 1L, BigDecimal.TEN, 1)));
+        verify(mockCatalogVersion, times(1)).increment();
+        verify(mockBooksCache, times(1)).evict(1L);
+        verify(mockBooksCache, times(1)).evict(2L);
+        verify(mockAuthorsCache, times(1)).evict(1L);
+        verify(mockBookSearchIndex, times(1)).replaceAll(any());
+        verify(mockBestsellerRanking, times(1)).replaceAll(any());
+    }
+
+    @Test
+    void verifyCachedBookIncludesFlushedSalesUntilEvicted() {
+        //given
+        inTransaction();
+        BookView cachedBook = getBook(1L);
+        salesCounter.record(cachedBook, 3);
+        when(mockBookSalesRepository.addUnitsSold(any())).thenReturn(new int[]{1});
+        when(mockCacheManager.getCache(BOOKS_CACHE)).thenReturn(mockBooksCache);
+        when(mockCacheManager.getCache(AUTHORS_CACHE)).thenReturn(mockAuthorsCache);
+        List<BookView> readsBeforeEviction = new ArrayList<>();
+        doAnswer(invocation -> readsBeforeEviction.add(salesCounter.applyTo(cachedBook)))
+                .when(mockBooksCache).evict(1L);
+
+        //when
+        salesService.flushSales();
+
+        //then
+        assertThat(readsBeforeEviction).extracting(BookView::getUnitsSold).containsExactly(3);
+        assertThat(salesCounter.pendingUnits(1L)).isZero();
+    }
+
+    @Test
+    void verifyNothingIsWrittenWithoutPendingSales() {
+        //when
+        int flushed = salesService.flushSales();
+
+        //then
+        assertThat(flushed).isZero();
+        verifyNoInteractions(mockTransactionTemplate, mockBookSalesRepository, mockAuthorService);
+    }
+
+    @Test
+    void verifySalesOfDeletedBooksAreDropped() {
+        //given
+        inTransaction();
+        salesCounter.record(getBook(1L), 3);
+        when(mockBookSalesRepository.addUnitsSold(any())).thenReturn(new int[]{0});
+
+        //when
+        int flushed = salesService.flushSales();
+
+        //then
+        assertThat(flushed).isZero();
+        assertThat(salesCounter.drain()).isEmpty();
+        verifyNoInteractions(mockAuthorService, mockCatalogVersion, mockCacheManager);
+    }
+
+    @Test
+    void verifySalesAreKeptWhenFlushFails() {
+        //given
+        inTransaction();
+        salesCounter.record(getBook(1L), 3);
+        when(mockBookSalesRepository.addUnitsSold(any())).thenThrow(new QueryTimeoutException("timeout"));
+
+        //when
+        //then
+        assertThatThrownBy(() -> salesService.flushSales())
+                .isInstanceOf(QueryTimeoutException.class);
+        assertThat(salesCounter.pendingUnits(1L)).isEqualTo(3);
+        assertThat(salesCounter.drain()).extracting(SalesDelta::getUnits).containsExactly(3L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void inTransaction() {
+        when(mockTransactionTemplate.execute(any()))
+                .thenAnswer(invocation -> invocation.getArgument(0, TransactionCallback.class).doInTransaction(null));
+    }
+
+    private static BookView getBook(Long id) {
+        return BookView.builder()
+                .id(id)
+                .title("Title " + id)
+                .price(BigDecimal.TEN)
+                .genre(Genre.FANTASY)
+                .authorId(1L)
+                .build();
+    }
+}
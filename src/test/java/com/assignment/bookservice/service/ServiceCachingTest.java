@@ -0,0 +1,174 @@
+package com.assignment.bookservice.service;
+
+import com.assignment.bookservice.configuration.CacheConfiguration;
+import com.assignment.bookservice.dto.AuthorResponseDto;
+import com.assignment.bookservice.dto.BookDto;
+import com.assignment.bookservice.dto.BookView;
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.ranking.BestsellerRanking;
+import com.assignment.bookservice.repository.AuthorRepository;
+import com.assignment.bookservice.repository.AuthorStatsRepository;
+import com.assignment.bookservice.repository.BookRepository;
+import com.assignment.bookservice.response.MultiGetResponse;
+import com.assignment.bookservice.search.BookSearchIndex;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.validation.Validator;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringJUnitConfig
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ServiceCachingTest {
+
+    @Configuration
+    @Import({CacheConfiguration.class, BookService.class, AuthorService.class, BookSearchIndex.class, BestsellerRanking.class, CatalogVersion.class})
+    static class Config {
+
+        @Bean
+        CacheManager cacheManager() {
+            return new CaffeineCacheManager(CacheConfiguration.BOOKS_CACHE, CacheConfiguration.AUTHORS_CACHE);
+        }
+    }
+
+    @MockBean
+    private BookRepository mockBookRepository;
+
+    @MockBean
+    private AuthorRepository mockAuthorRepository;
+
+    @MockBean
+    private AuthorStatsRepository mockAuthorStatsRepository;
+
+    @MockBean
+    private Validator mockValidator;
+
+    @MockBean
+    private EntityManager mockEntityManager;
+
+    @MockBean
+    private TransactionTemplate mockTransactionTemplate;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private AuthorService authorService;
+
+    @Test
+    void verifyBookIsReadThroughCache() {
+        //given
+        when(mockBookRepository.findViewById(1L)).thenReturn(Optional.of(BookView.builder().id(1L).build()));
+
+        //when
+        bookService.findBook(1L);
+        bookService.findBook(1L);
+
+        //then
+        verify(mockBookRepository, times(1)).findViewById(1L);
+    }
+
+    @Test
+    void verifyMultiGetTakesCachedBooksFromCache() {
+        //given
+        when(mockBookRepository.findViewById(1L)).thenReturn(Optional.of(BookView.builder().id(1L).build()));
+        when(mockBookRepository.findViewsByIdIn(List.of(2L))).thenReturn(List.of(BookView.builder().id(2L).build()));
+        bookService.findBook(1L);
+
+        //when
+        MultiGetResponse<BookView> response = bookService.findBooksByIds(List.of(2L, 1L));
+
+        //then
+        assertThat(response.getResponse()).extracting(BookView::getId).containsExactly(2L, 1L);
+        verify(mockBookRepository, times(1)).findViewsByIdIn(List.of(2L));
+        verify(mockBookRepository, times(1)).findViewById(1L);
+    }
+
+    @Test
+    void verifyMultiGetTakesCachedAuthorsFromCache() {
+        //given
+        when(mockAuthorRepository.findById(1L)).thenReturn(Optional.of(Author.builder().id(1L).firstName("cached").build()));
+        when(mockBookRepository.findViewsByAuthorIdIn(List.of(1L))).thenReturn(List.of(BookView.builder().id(5L).authorId(1L).build()));
+        authorService.findById(1L);
+
+        //when
+        MultiGetResponse<AuthorResponseDto> withBooks = authorService.findByIds(List.of(1L), true);
+        MultiGetResponse<AuthorResponseDto> withoutBooks = authorService.findByIds(List.of(1L), false);
+
+        //then
+        assertThat(withBooks.getResponse().get(0).getBooks()).extracting(BookView::getId).containsExactly(5L);
+        assertThat(withoutBooks.getResponse().get(0).getBooks()).isNull();
+        assertThat(withoutBooks.getResponse().get(0).getFirstName()).isEqualTo("cached");
+        verify(mockAuthorRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void verifyDeletedBookIsEvicted() {
+        //given
+        when(mockBookRepository.lockViewsByIdIn(List.of(1L))).thenReturn(List.of(BookView.builder()
+                .id(1L)
+                .authorId(1L)
+                .price(BigDecimal.ONE)
+                .build()));
+        when(mockBookRepository.findViewById(1L)).thenReturn(Optional.of(BookView.builder().id(1L).build()));
+        bookService.findBook(1L);
+
+        //when
+        bookService.deleteBook(1L);
+        bookService.findBook(1L);
+
+        //then
+        verify(mockBookRepository, times(2)).findViewById(1L);
+    }
+
+    @Test
+    void verifyAuthorIsEvictedWhenBookIsSaved() {
+        //given
+        when(mockAuthorRepository.findById(1L)).thenReturn(Optional.of(Author.builder().id(1L).books(List.of()).build()));
+        when(mockBookRepository.saveAndFlush(any())).thenAnswer(invocation -> {
+            Book book = invocation.getArgument(0);
+            book.setId(1L);
+            return book;
+        });
+        authorService.findById(1L);
+
+        //when
+        bookService.saveBook(BookDto.builder().title("title").price(BigDecimal.ONE).authorId(1L).build());
+        authorService.findById(1L);
+
+        //then
+        verify(mockAuthorRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void verifyDeletedAuthorIsEvicted() {
+        //given
+        when(mockAuthorRepository.findById(1L)).thenReturn(Optional.of(Author.builder().id(1L).books(List.of()).build()));
+        when(mockAuthorRepository.deleteAuthorById(1L)).thenReturn(1);
+        authorService.findById(1L);
+
+        //when
+        authorService.deleteAuthor(1L);
+        authorService.findById(1L);
+
+        //then
+        verify(mockAuthorRepository, times(2)).findById(1L);
+    }
+}
@@ -0,0 +1,113 @@
+package com.assignment.bookservice.snapshot;
+
+import com.assignment.bookservice.entity.Author;
+import com.assignment.bookservice.entity.Book;
+import com.assignment.bookservice.entity.Genre;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CatalogSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void verifySnapshotIsReadAsWritten() throws IOException {
+        //given
+        Path snapshot = directory.resolve("catalog.snapshot");
+        Author author = Author.builder().id(1L).version(2L).firstName("Ursula").lastName("Le Guin").build();
+        Author authorWithoutNames = Author.builder().id(2L).version(0L).build();
+        Book book = Book.builder().id(3L).version(4L).authorId(1L).unitsSold(12).genre(Genre.FANTASY)
+                .price(new BigDecimal("12.50")).title("Tehanu – Éarthsea").description("The last book").build();
+        Book bookWithoutValues = Book.builder().id(4L).version(0L).authorId(2L).build();
+
+        //when
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(snapshot)) {
+            writer.writeAuthor(author);
+            writer.writeAuthor(authorWithoutNames);
+            writer.writeBook(book);
+            writer.writeBook(bookWithoutValues);
+            writer.commit();
+        }
+        List<Author> authors = new ArrayList<>();
+        List<Book> books = new ArrayList<>();
+        CatalogSnapshotReader.read(snapshot, authors::add, books::add);
+
+        //then
+        assertThat(authors).containsExactly(author, authorWithoutNames);
+        assertThat(books).containsExactly(book, bookWithoutValues);
+        assertThat(Files.list(directory)).containsExactly(snapshot);
+    }
+
+    @Test
+    void verifyUncommittedSnapshotKeepsPreviousSnapshot() throws IOException {
+        //given
+        Path snapshot = directory.resolve("catalog.snapshot");
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(snapshot)) {
+            writer.writeAuthor(Author.builder().id(1L).version(0L).build());
+            writer.commit();
+        }
+
+        //when
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(snapshot)) {
+            writer.writeAuthor(Author.builder().id(2L).version(0L).build());
+        }
+        List<Author> authors = new ArrayList<>();
+        CatalogSnapshotReader.read(snapshot, authors::add, book -> {
+        });
+
+        //then
+        assertThat(authors).extracting(Author::getId).containsExactly(1L);
+        assertThat(Files.list(directory)).containsExactly(snapshot);
+    }
+
+    @Test
+    void verifyAuthorsMustBeWrittenBeforeBooks() throws IOException {
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(directory.resolve("catalog.snapshot"))) {
+            writer.writeBook(Book.builder().id(1L).version(0L).authorId(1L).build());
+
+            assertThatThrownBy(() -> writer.writeAuthor(Author.builder().id(1L).version(0L).build()))
+                    .isInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    void verifyTruncatedSnapshotIsRejected() throws IOException {
+        //given
+        Path snapshot = directory.resolve("catalog.snapshot");
+        try (CatalogSnapshotWriter writer = new CatalogSnapshotWriter(snapshot)) {
+            writer.writeAuthor(Author.builder().id(1L).version(0L).firstName("first").build());
+            writer.commit();
+        }
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length - 3));
+
+        //then
+        assertThatThrownBy(() -> CatalogSnapshotReader.read(snapshot, author -> {
+        }, book -> {
+        })).isInstanceOf(IOException.class).hasMessageContaining("truncated");
+    }
+
+    @Test
+    void verifyOtherFileIsRejected() throws IOException {
+        //given
+        Path file = directory.resolve("catalog.json");
+        Files.writeString(file, "{\"books\": []}");
+
+        //then
+        assertThatThrownBy(() -> CatalogSnapshotReader.read(file, author -> {
+        }, book -> {
+        })).isInstanceOf(IOException.class).hasMessageContaining("not a catalog snapshot");
+    }
+}